@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 任务许可申请的统计指标，按任务类别分别统计
+ * <p>
+ * 包括：获得许可次数、因互斥被拒次数（及与哪一类任务冲突）、占位时的CAS重试次数、申请许可的耗时。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.AdmissionMetrics
+ * @author: JQY
+ * @create: 2026-10-17 14:30 Via IntelliJ IDEA
+ **/
+public class AdmissionMetrics {
+
+    private static final int TYPE_COUNT = TaskType.values().length;
+
+    private final AtomicLongArray admittedCount = new AtomicLongArray(TYPE_COUNT);
+
+    private final AtomicLongArray rejectedCount = new AtomicLongArray(TYPE_COUNT);
+
+    /**
+     * 下标为 申请类别序号*类别数+冲突类别序号
+     */
+    private final AtomicLongArray conflictCount = new AtomicLongArray(TYPE_COUNT * TYPE_COUNT);
+
+    private final AtomicLongArray casRetryCount = new AtomicLongArray(TYPE_COUNT);
+
+    private final AtomicLongArray totalAdmissionNanos = new AtomicLongArray(TYPE_COUNT);
+
+    private final AtomicLongArray maxAdmissionNanos = new AtomicLongArray(TYPE_COUNT);
+
+    void recordConflict(TaskType taskType, TaskType runningTaskType) {
+        this.conflictCount.incrementAndGet(taskType.ordinal() * TYPE_COUNT + runningTaskType.ordinal());
+    }
+
+    void recordCasRetry(TaskType taskType) {
+        this.casRetryCount.incrementAndGet(taskType.ordinal());
+    }
+
+    /**
+     * 记录一次许可申请的结果与耗时
+     * @param taskType 任务类别
+     * @param admitted 是否获得许可
+     * @param elapsedNanos 耗时（纳秒）
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    void recordAdmission(TaskType taskType, boolean admitted, long elapsedNanos) {
+        final int index = taskType.ordinal();
+        if (admitted) {
+            this.admittedCount.incrementAndGet(index);
+        } else {
+            this.rejectedCount.incrementAndGet(index);
+        }
+        this.totalAdmissionNanos.addAndGet(index, elapsedNanos);
+        for (; ; ) {
+            long max = this.maxAdmissionNanos.get(index);
+            if (elapsedNanos <= max || this.maxAdmissionNanos.compareAndSet(index, max, elapsedNanos)) {
+                break;
+            }
+        }
+    }
+
+    public long getAdmittedCount(TaskType taskType) {
+        return this.admittedCount.get(taskType.ordinal());
+    }
+
+    public long getRejectedCount(TaskType taskType) {
+        return this.rejectedCount.get(taskType.ordinal());
+    }
+
+    /**
+     * 申请类别因冲突类别正在执行而被拒的次数
+     * @param taskType 申请许可的任务类别
+     * @param runningTaskType 正在执行的冲突类别
+     * @return long
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public long getConflictCount(TaskType taskType, TaskType runningTaskType) {
+        return this.conflictCount.get(taskType.ordinal() * TYPE_COUNT + runningTaskType.ordinal());
+    }
+
+    public long getCasRetryCount(TaskType taskType) {
+        return this.casRetryCount.get(taskType.ordinal());
+    }
+
+    /**
+     * 平均申请耗时（微秒）
+     * @param taskType 任务类别
+     * @return long
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public long getAverageAdmissionMicros(TaskType taskType) {
+        final int index = taskType.ordinal();
+        long count = this.admittedCount.get(index) + this.rejectedCount.get(index);
+        return 0L == count ? 0L : TimeUnit.NANOSECONDS.toMicros(this.totalAdmissionNanos.get(index) / count);
+    }
+
+    public long getMaxAdmissionMicros(TaskType taskType) {
+        return TimeUnit.NANOSECONDS.toMicros(this.maxAdmissionNanos.get(taskType.ordinal()));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("AdmissionMetrics{");
+        for (TaskType taskType : TaskType.values()) {
+            builder.append(taskType.name())
+                    .append("={admitted=").append(this.getAdmittedCount(taskType))
+                    .append(", rejected=").append(this.getRejectedCount(taskType))
+                    .append(", conflicts={");
+            for (TaskType runningTaskType : TaskType.values()) {
+                long conflicts = this.getConflictCount(taskType, runningTaskType);
+                if (0L != conflicts) {
+                    builder.append(runningTaskType.name()).append('=').append(conflicts).append(' ');
+                }
+            }
+            builder.append("}, casRetries=").append(this.getCasRetryCount(taskType))
+                    .append(", avgMicros=").append(this.getAverageAdmissionMicros(taskType))
+                    .append(", maxMicros=").append(this.getMaxAdmissionMicros(taskType))
+                    .append("} ");
+        }
+        return builder.append('}').toString();
+    }
+}
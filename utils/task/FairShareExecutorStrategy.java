@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task;
+
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+
+import java.util.Map;
+
+/**
+ * 公平排队策略：在另一策略的主任务执行器外加一层{@link FairShareTaskExecutor}
+ * <p>
+ * 主任务的并发数受上限约束，超出的任务按优先级、类别权重与等待时间排队；子任务仍由被包装的策略分配。
+ * 任务先排队、被选中时才申请许可，与正在执行的任务互斥时继续排队，不会被拒绝。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.FairShareExecutorStrategy
+ * @author: JQY
+ * @create: 2026-10-17 03:05 Via IntelliJ IDEA
+ **/
+public class FairShareExecutorStrategy implements TaskExecutorStrategy {
+
+    private final TaskExecutorStrategy executorStrategy;
+
+    private final FairShareTaskExecutor mainExecutor;
+
+    /**
+     * 登记在{@link RunningTaskRegistry}上的监听者，关闭时注销
+     */
+    private final Runnable releaseListener;
+
+    /**
+     * @param executorStrategy 被包装的策略
+     * @param concurrencyLimit 同时执行的主任务数上限
+     * @param weightMap        各类别的权重，可空，未设置的类别权重为1
+     */
+    public FairShareExecutorStrategy(TaskExecutorStrategy executorStrategy, int concurrencyLimit, Map<TaskType, Integer> weightMap) {
+        this.executorStrategy = executorStrategy;
+        this.mainExecutor = new FairShareTaskExecutor(executorStrategy.getMainExecutor(), concurrencyLimit, weightMap);
+        //互斥任务结束后，重新选择因互斥而暂不启动的排队任务
+        final FairShareTaskExecutor fairShareExecutor = this.mainExecutor;
+        this.releaseListener = new Runnable() {
+            @Override
+            public void run() {
+                fairShareExecutor.retryDispatch();
+            }
+        };
+        RunningTaskRegistry.getInstance().addReleaseListener(this.releaseListener);
+    }
+
+    @Override
+    public AsyncListenableTaskExecutor getMainExecutor() {
+        return this.mainExecutor;
+    }
+
+    @Override
+    public AsyncListenableTaskExecutor getSubTaskExecutor(TaskType taskType) {
+        return this.executorStrategy.getSubTaskExecutor(taskType);
+    }
+
+    @Override
+    public int getSubTaskConcurrencyLimit(TaskType taskType) {
+        return this.executorStrategy.getSubTaskConcurrencyLimit(taskType);
+    }
+
+    @Override
+    public int getSubTaskActiveCount(TaskType taskType) {
+        return this.executorStrategy.getSubTaskActiveCount(taskType);
+    }
+
+    @Override
+    public void shutdown() {
+        RunningTaskRegistry.getInstance().removeReleaseListener(this.releaseListener);
+        this.mainExecutor.shutdown();
+        this.executorStrategy.shutdown();
+    }
+}
@@ -0,0 +1,447 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureTask;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按优先级与任务类别公平份额排队的执行器
+ * <p>
+ * 同时执行的任务数达到上限后，新任务按类别排队；有空位时从各类别的队首中选出排序值最小的一个交给底层执行器。
+ * 排序值 = 入队时刻 - 优先级×老化间隔 + 所属类别的已用份额：
+ * <ul>
+ * <li>优先级每高一级，相当于提前一个老化间隔入队；反过来，每多等一个老化间隔，相当于优先级提高一级，任何任务都不会被一直压在后面；</li>
+ * <li>某类别每启动一个任务，其已用份额增加“份额单位÷权重”，权重越大的类别在拥挤时能启动的任务越多；
+ * 类别由空转为排队时，已用份额至少追平最近一次启动的类别，空闲期间不积攒份额。</li>
+ * </ul>
+ * 排队时可附带许可闸门（{@link AdmissionGate}）：选中的队首未获许可时该类别暂不启动，改选其它类别，
+ * 许可条件变化后（如互斥任务结束）由{@link #retryDispatch()}重新选择。
+ * 未标明任务类别的任务（{@link #execute(Runnable)}等）不排队，直接交给底层执行器。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.FairShareTaskExecutor
+ * @author: JQY
+ * @create: 2026-10-17 02:50 Via IntelliJ IDEA
+ **/
+public class FairShareTaskExecutor implements AsyncListenableTaskExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(FairShareTaskExecutor.class);
+
+    /**
+     * 默认老化间隔：每等待1分钟相当于优先级提高一级
+     */
+    public static final long DEFAULT_AGING_MILLIS = 60 * 1000L;
+
+    /**
+     * 默认份额单位：权重为1的类别每启动一个任务，相当于让后续任务晚入队1分钟
+     */
+    public static final long DEFAULT_SHARE_QUANTUM_MILLIS = 60 * 1000L;
+
+    /**
+     * 优先级的取值范围，超出时按边界处理，避免排序值溢出
+     */
+    private static final int MAX_PRIORITY = 10000;
+
+    private static final int TYPE_COUNT = TaskType.values().length;
+
+    private final Executor executor;
+
+    private final int concurrencyLimit;
+
+    private final long agingNanos;
+
+    /**
+     * 各类别每启动一个任务所增加的已用份额（纳秒）
+     */
+    private final long[] strideNanos = new long[TYPE_COUNT];
+
+    /**
+     * 各类别的已用份额（纳秒），由this保护
+     */
+    private final long[] passNanos = new long[TYPE_COUNT];
+
+    /**
+     * 各类别的等待队列，由this保护
+     */
+    private final PriorityQueue<QueuedTask>[] queues;
+
+    private final TaskQueueMetrics queueMetrics = new TaskQueueMetrics();
+
+    /**
+     * 最近一次启动的任务所属类别的已用份额，由this保护
+     */
+    private long globalPassNanos = 0L;
+
+    /**
+     * 已交给底层执行器、尚未结束的任务数，由this保护
+     */
+    private int runningCount = 0;
+
+    /**
+     * 入队序号，排序值相同时先入队者优先，由this保护
+     */
+    private long sequence = 0L;
+
+    private volatile boolean shutdown = false;
+
+    /**
+     * @param executor         底层执行器
+     * @param concurrencyLimit 同时执行的任务数上限
+     * @param weightMap        各类别的权重，可空，未设置的类别权重为1
+     */
+    public FairShareTaskExecutor(Executor executor, int concurrencyLimit, Map<TaskType, Integer> weightMap) {
+        this(executor, concurrencyLimit, weightMap, DEFAULT_AGING_MILLIS, DEFAULT_SHARE_QUANTUM_MILLIS);
+    }
+
+    /**
+     * @param executor           底层执行器
+     * @param concurrencyLimit   同时执行的任务数上限
+     * @param weightMap          各类别的权重，可空，未设置的类别权重为1
+     * @param agingMillis        老化间隔（毫秒），每等待这么久相当于优先级提高一级
+     * @param shareQuantumMillis 份额单位（毫秒）
+     */
+    @SuppressWarnings("unchecked")
+    public FairShareTaskExecutor(Executor executor, int concurrencyLimit, Map<TaskType, Integer> weightMap, long agingMillis, long shareQuantumMillis) {
+        if (concurrencyLimit <= 0) {
+            throw new IllegalArgumentException("并发上限必须大于0，当前为【" + concurrencyLimit + "】。");
+        }
+        if (agingMillis <= 0 || shareQuantumMillis < 0) {
+            throw new IllegalArgumentException("老化间隔必须大于0、份额单位不能小于0，当前为【" + agingMillis + "】、【" + shareQuantumMillis + "】。");
+        }
+        this.executor = executor;
+        this.concurrencyLimit = concurrencyLimit;
+        this.agingNanos = TimeUnit.MILLISECONDS.toNanos(agingMillis);
+        this.queues = new PriorityQueue[TYPE_COUNT];
+        final long quantumNanos = TimeUnit.MILLISECONDS.toNanos(shareQuantumMillis);
+        for (TaskType taskType : TaskType.values()) {
+            Integer weight = null == weightMap ? null : weightMap.get(taskType);
+            if (null != weight && weight <= 0) {
+                throw new IllegalArgumentException(taskType + "任务的权重必须大于0，当前为【" + weight + "】。");
+            }
+            this.strideNanos[taskType.ordinal()] = quantumNanos / (null == weight ? 1 : weight);
+            this.queues[taskType.ordinal()] = new PriorityQueue<>(11, QueuedTask.ORDER);
+        }
+    }
+
+    public int getConcurrencyLimit() {
+        return this.concurrencyLimit;
+    }
+
+    /**
+     * 已交给底层执行器、尚未结束的任务数
+     * @param
+     * @return int
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public synchronized int getRunningCount() {
+        return this.runningCount;
+    }
+
+    /**
+     * 获取排队的统计指标
+     * @param
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskQueueMetrics
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public TaskQueueMetrics getQueueMetrics() {
+        return this.queueMetrics;
+    }
+
+    /**
+     * 按任务类别与优先级排队执行
+     * <p>
+     * 若排队的任务在启动时被底层执行器拒绝，任务为{@link Future}的将被取消，以便其回调得知任务未能执行。
+     * @param task     任务
+     * @param taskType 任务类别
+     * @param priority 优先级，数值越大越优先
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void execute(Runnable task, TaskType taskType, int priority) {
+        this.execute(task, taskType, priority, null);
+    }
+
+    /**
+     * 按任务类别与优先级排队执行，选中后须先通过许可闸门才能启动
+     * <p>
+     * 闸门在本执行器的锁内调用，应当迅速返回、不得阻塞；返回true后任务必定交给底层执行器，
+     * 若被底层执行器拒绝，任务为{@link Future}的将被取消，由其回调撤销已取得的许可。
+     * @param task     任务
+     * @param taskType 任务类别
+     * @param priority 优先级，数值越大越优先
+     * @param gate     许可闸门，可空
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void execute(Runnable task, TaskType taskType, int priority, AdmissionGate gate) {
+        if (this.shutdown) {
+            throw new RejectedExecutionException("执行器已关闭，" + taskType + "任务被拒绝。");
+        }
+        final long now = System.nanoTime();
+        final int boundedPriority = Math.max(-MAX_PRIORITY, Math.min(MAX_PRIORITY, priority));
+        this.queueMetrics.recordEnqueue(taskType);
+        synchronized (this) {
+            PriorityQueue<QueuedTask> queue = this.queues[taskType.ordinal()];
+            if (queue.isEmpty()) {
+                //由空转为排队，不积攒空闲期间的份额
+                this.passNanos[taskType.ordinal()] = Math.max(this.passNanos[taskType.ordinal()], this.globalPassNanos);
+            }
+            queue.add(new QueuedTask(task, taskType, gate, now, now - boundedPriority * this.agingNanos, this.sequence++));
+        }
+        this.dispatch();
+    }
+
+    /**
+     * 按任务类别与优先级排队执行，并返回完成凭据
+     * @param task     任务
+     * @param taskType 任务类别
+     * @param priority 优先级，数值越大越优先
+     * @return org.springframework.util.concurrent.ListenableFuture<T>
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public <T> ListenableFuture<T> submitListenable(Callable<T> task, TaskType taskType, int priority) {
+        ListenableFutureTask<T> future = new ListenableFutureTask<>(task);
+        this.execute(future, taskType, priority);
+        return future;
+    }
+
+    /**
+     * 许可条件变化后重新选择排队的任务
+     * @param
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void retryDispatch() {
+        this.dispatch();
+    }
+
+    /**
+     * 不再接受新任务，已排队的任务仍会依次启动
+     * @param
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void shutdown() {
+        this.shutdown = true;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (this.shutdown) {
+            throw new RejectedExecutionException("执行器已关闭，任务被拒绝。");
+        }
+        this.executor.execute(task);
+    }
+
+    @Override
+    public void execute(Runnable task, long startTimeout) {
+        this.execute(task);
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        return this.submitListenable(task);
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        return this.submitListenable(task);
+    }
+
+    @Override
+    public ListenableFuture<?> submitListenable(Runnable task) {
+        ListenableFutureTask<Object> future = new ListenableFutureTask<>(task, null);
+        this.execute(future);
+        return future;
+    }
+
+    @Override
+    public <T> ListenableFuture<T> submitListenable(Callable<T> task) {
+        ListenableFutureTask<T> future = new ListenableFutureTask<>(task);
+        this.execute(future);
+        return future;
+    }
+
+    /**
+     * 在并发上限内依次启动排序值最小的任务
+     * @param
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private void dispatch() {
+        for (; ; ) {
+            QueuedTask queuedTask;
+            synchronized (this) {
+                if (this.runningCount >= this.concurrencyLimit) {
+                    return;
+                }
+                queuedTask = this.pollNext();
+                if (null == queuedTask) {
+                    return;
+                }
+                this.runningCount++;
+            }
+            final long waitNanos = System.nanoTime() - queuedTask.enqueueNanos;
+            try {
+                this.executor.execute(this.released(queuedTask.task));
+                this.queueMetrics.recordDequeue(queuedTask.taskType, true, waitNanos);
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    this.runningCount--;
+                }
+                this.queueMetrics.recordDequeue(queuedTask.taskType, false, waitNanos);
+                logger.error("\r\n排队的" + queuedTask.taskType + "任务被底层执行器拒绝，已等待【"
+                        + TimeUnit.NANOSECONDS.toMillis(waitNanos) + "】毫秒。\r\n", e);
+                if (queuedTask.task instanceof Future) {
+                    ((Future<?>) queuedTask.task).cancel(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * 从各类别的队首中取出排序值最小且通过许可闸门的任务，并记入其类别的已用份额
+     * @param
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.FairShareTaskExecutor.QueuedTask 没有可启动的任务时返回null
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private QueuedTask pollNext() {
+        //本次选择中队首未获许可的类别
+        boolean[] blocked = new boolean[TYPE_COUNT];
+        for (; ; ) {
+            int selected = -1;
+            long selectedKey = 0L;
+            for (int i = 0; i < TYPE_COUNT; i++) {
+                QueuedTask head = this.queues[i].peek();
+                if (null == head || blocked[i]) {
+                    continue;
+                }
+                long key = head.deadlineNanos + this.passNanos[i];
+                if (-1 == selected || key - selectedKey < 0) {
+                    selected = i;
+                    selectedKey = key;
+                }
+            }
+            if (-1 == selected) {
+                return null;
+            }
+            AdmissionGate gate = this.queues[selected].peek().gate;
+            if (null == gate || gate.tryAdmit()) {
+                return this.take(selected);
+            }
+            blocked[selected] = true;
+        }
+    }
+
+    private QueuedTask take(int selected) {
+        this.globalPassNanos = this.passNanos[selected];
+        this.passNanos[selected] += this.strideNanos[selected];
+        return this.queues[selected].poll();
+    }
+
+    /**
+     * 包装任务：结束后让出位置并启动下一个排队的任务
+     * @param task 任务
+     * @return java.lang.Runnable
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private Runnable released(final Runnable task) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } finally {
+                    synchronized (FairShareTaskExecutor.this) {
+                        runningCount--;
+                    }
+                    dispatch();
+                }
+            }
+        };
+    }
+
+    /**
+     * 排队中的任务
+     */
+    private static class QueuedTask {
+
+        /**
+         * 先比较已计入优先级的入队时刻，相同时先入队者优先
+         */
+        private static final Comparator<QueuedTask> ORDER = new Comparator<QueuedTask>() {
+            @Override
+            public int compare(QueuedTask o1, QueuedTask o2) {
+                long diff = o1.deadlineNanos - o2.deadlineNanos;
+                if (0L != diff) {
+                    return diff < 0 ? -1 : 1;
+                }
+                return Long.compare(o1.sequence, o2.sequence);
+            }
+        };
+
+        private final Runnable task;
+
+        private final TaskType taskType;
+
+        private final AdmissionGate gate;
+
+        private final long enqueueNanos;
+
+        /**
+         * 入队时刻 - 优先级×老化间隔
+         */
+        private final long deadlineNanos;
+
+        private final long sequence;
+
+        private QueuedTask(Runnable task, TaskType taskType, AdmissionGate gate, long enqueueNanos, long deadlineNanos, long sequence) {
+            this.task = task;
+            this.taskType = taskType;
+            this.gate = gate;
+            this.enqueueNanos = enqueueNanos;
+            this.deadlineNanos = deadlineNanos;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * 许可闸门：排队的任务被选中后，只有取得许可才会启动
+     */
+    public interface AdmissionGate {
+
+        /**
+         * 尝试取得许可，应当迅速返回、不得阻塞
+         * @param
+         * @return boolean 是否取得许可
+         * @author JQY
+         * @date 2026/10/17
+         */
+        boolean tryAdmit();
+    }
+}
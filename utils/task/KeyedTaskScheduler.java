@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task;
+
+import org.slf4j.Logger;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureTask;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 按键分组、轮转派发子任务的调度器
+ * <p>
+ * 子任务按键（如FTP主机）排队，同一键同时执行的子任务数不超过maxPerKey，全部键合计不超过maxTotal；
+ * 有空位时在各键之间轮转取任务，某个键积压再多也只占用自己的份额，其余键的任务不必排在它后面。
+ * <p>
+ * 线程池拒绝执行时，子任务在派发者所在的线程上执行，与{@link SubTaskGroup}一致。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.KeyedTaskScheduler
+ * @author: JQY
+ * @create: 2026-10-17 23:50 Via IntelliJ IDEA
+ **/
+public class KeyedTaskScheduler {
+
+    private final AsyncListenableTaskExecutor threadPoolTaskExecutor;
+
+    private final int maxPerKey;
+
+    private final int maxTotal;
+
+    private final Logger logger;
+
+    /**
+     * 各键的排队与执行情况
+     */
+    private final Map<String, KeyState> keyStateMap = new HashMap<>();
+
+    /**
+     * 有排队任务的键，按轮转顺序排列；一个键在其中当且仅当它有排队任务
+     */
+    private final Deque<String> rotation = new ArrayDeque<>();
+
+    private int totalRunning = 0;
+
+    KeyedTaskScheduler(AsyncListenableTaskExecutor threadPoolTaskExecutor, int maxPerKey, int maxTotal, Logger logger) {
+        this.threadPoolTaskExecutor = threadPoolTaskExecutor;
+        this.maxPerKey = Math.max(1, maxPerKey);
+        this.maxTotal = Math.max(1, maxTotal);
+        this.logger = logger;
+    }
+
+    /**
+     * 提交一个子任务，有空位时立即派发，否则排队
+     *
+     * @param key     分组键
+     * @param subTask 子任务
+     * @return org.springframework.util.concurrent.ListenableFuture<V> 子任务的完成凭据
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public <V> ListenableFuture<V> submit(String key, Callable<V> subTask) {
+        ListenableFutureTask<V> futureTask = new ListenableFutureTask<>(subTask);
+        synchronized (this) {
+            KeyState keyState = this.keyStateMap.get(key);
+            if (null == keyState) {
+                keyState = new KeyState();
+                this.keyStateMap.put(key, keyState);
+            }
+            if (keyState.pending.isEmpty()) {
+                this.rotation.addLast(key);
+            }
+            keyState.pending.addLast(futureTask);
+        }
+        this.dispatch();
+        return futureTask;
+    }
+
+    /**
+     * 按轮转顺序取出可执行的任务并派发
+     */
+    private void dispatch() {
+        List<Runnable> readyList = new ArrayList<>();
+        synchronized (this) {
+            int idleRounds = 0;
+            while (this.totalRunning < this.maxTotal && !this.rotation.isEmpty() && idleRounds < this.rotation.size()) {
+                final String key = this.rotation.pollFirst();
+                KeyState keyState = this.keyStateMap.get(key);
+                if (keyState.running >= this.maxPerKey) {
+                    //该键已满，留待其任务结束
+                    this.rotation.addLast(key);
+                    idleRounds++;
+                    continue;
+                }
+                final Runnable task = keyState.pending.pollFirst();
+                keyState.running++;
+                this.totalRunning++;
+                if (!keyState.pending.isEmpty()) {
+                    this.rotation.addLast(key);
+                }
+                idleRounds = 0;
+                readyList.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            task.run();
+                        } finally {
+                            onFinished(key);
+                        }
+                    }
+                });
+            }
+        }
+        for (Runnable ready : readyList) {
+            try {
+                this.threadPoolTaskExecutor.execute(ready);
+            } catch (RejectedExecutionException e) {
+                if (null != this.logger) {
+                    this.logger.warn("\r\n线程池拒绝执行子任务，转为在当前线程上执行。\r\n");
+                }
+                ready.run();
+            }
+        }
+    }
+
+    private void onFinished(String key) {
+        synchronized (this) {
+            this.keyStateMap.get(key).running--;
+            this.totalRunning--;
+        }
+        this.dispatch();
+    }
+
+    private static class KeyState {
+
+        private final Deque<Runnable> pending = new ArrayDeque<>();
+
+        private int running = 0;
+    }
+}
@@ -59,4 +59,31 @@ public interface Manageable extends Callable<TaskResult> {
      */
     boolean isMultiThreadExecute();
 
-}
+    /**
+     * 获取上游任务类型
+     * <p>
+     * 通过{@link TaskDagScheduler}调度时，上游任务全部正常完成后本任务才会启动。
+     * @param
+     * @return java.util.Set<net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskType> 没有上游任务时返回null或空集合
+     * @author JQY
+     * @date 2026/10/17
+     */
+    default Set<TaskType> listUpstreamTaskType() {
+        return null;
+    }
+
+    /**
+     * 获取本任务的优先级，数值越大越优先
+     * <p>
+     * 主执行器为{@link FairShareTaskExecutor}时，排队的任务按优先级、所属类别的公平份额及等待时间决定启动顺序。
+     * 默认取任务类别的默认优先级，需要插队的任务（如紧急重跑）可返回更大的值。
+     * @param
+     * @return int
+     * @author JQY
+     * @date 2026/10/17
+     */
+    default int getPriority() {
+        return this.getTaskType().getDefaultPriority();
+    }
+
+}
\ No newline at end of file
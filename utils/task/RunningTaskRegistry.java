@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.gmcc.dg.acr.modules.reward.basedata.dao.TaskExecuteRecordDOMapper;
+import net.gmcc.dg.acr.modules.reward.basedata.dao.entity.dborm.TaskExecuteRecordDO;
+import net.gmcc.dg.common.utils.SpringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 正在执行的任务登记表（进程内、无锁）
+ * <p>
+ * 以任务类别的序号为位，用一个长整型位图记录哪些类别的任务正在执行，通过CAS一次性完成“检查互斥并占位”。
+ * 任务许可的申请因此不再需要全局锁和数据库查询。
+ * <p>
+ * 进程启动时以任务执行记录中仍处于执行状态的记录作为外部占位，之后在后台定期与任务执行记录核对，
+ * 外部占位所对应的记录不再处于执行状态时自动解除占位。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.RunningTaskRegistry
+ * @author: JQY
+ * @create: 2026-10-17 13:20 Via IntelliJ IDEA
+ **/
+public class RunningTaskRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunningTaskRegistry.class);
+
+    /**
+     * 与任务执行记录核对的间隔（秒）
+     */
+    private static final long RECONCILE_INTERVAL_SECONDS = 60L;
+
+    /**
+     * 正在执行的任务类别位图（含外部占位）
+     */
+    private final AtomicLong runningMask = new AtomicLong(0L);
+
+    /**
+     * 由任务执行记录恢复的外部占位位图
+     */
+    private final AtomicLong externalMask = new AtomicLong(0L);
+
+    /**
+     * 各类别正在执行的任务的执行编号，下标为任务类别序号
+     */
+    private final AtomicReferenceArray<BigDecimal> executeIdArray = new AtomicReferenceArray<>(TaskType.values().length);
+
+    /**
+     * 任务互斥关系图
+     */
+    private final TaskExclusionGraph exclusionGraph = new TaskExclusionGraph();
+
+    /**
+     * 许可申请的统计指标
+     */
+    private final AdmissionMetrics admissionMetrics = new AdmissionMetrics();
+
+    /**
+     * 解除占位后通知的监听者，如按许可排队的{@link FairShareTaskExecutor}
+     */
+    private final List<Runnable> releaseListeners = new CopyOnWriteArrayList<>();
+
+    private final TaskExecuteRecordDOMapper taskExecuteRecordDAO;
+
+    private RunningTaskRegistry(TaskExecuteRecordDOMapper taskExecuteRecordDAO) {
+        this.taskExecuteRecordDAO = taskExecuteRecordDAO;
+    }
+
+    private static class Holder {
+        private static final RunningTaskRegistry INSTANCE = create();
+
+        private static RunningTaskRegistry create() {
+            final RunningTaskRegistry registry = new RunningTaskRegistry(SpringUtils.getBean(TaskExecuteRecordDOMapper.class));
+            registry.restore();
+            ScheduledExecutorService reconciler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("TaskCenter-执行记录核对线程-%d").setDaemon(true).build());
+            reconciler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    registry.reconcile();
+                }
+            }, RECONCILE_INTERVAL_SECONDS, RECONCILE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+            return registry;
+        }
+    }
+
+    /**
+     * 获取进程内唯一的登记表，所有任务中心共用
+     * @param
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.RunningTaskRegistry
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public static RunningTaskRegistry getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private static long bitOf(TaskType taskType) {
+        return 1L << taskType.ordinal();
+    }
+
+    public TaskExclusionGraph getExclusionGraph() {
+        return this.exclusionGraph;
+    }
+
+    public AdmissionMetrics getAdmissionMetrics() {
+        return this.admissionMetrics;
+    }
+
+    /**
+     * 为任务占位
+     * <p>
+     * 先将任务声明的互斥类别登记到互斥关系图，再按关系图检查互斥：
+     * 与之相连的类别（含自身）均未在执行时占位成功，否则返回第一个正在执行的互斥类别。
+     *
+     * @param taskType          要执行的任务类别
+     * @param exclusiveTaskType 任务声明的互斥类别，可空
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskType 占位成功返回null
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public TaskType tryAcquire(TaskType taskType, Collection<TaskType> exclusiveTaskType) {
+        return this.tryAcquire(taskType, this.exclusionGraph.register(taskType, exclusiveTaskType));
+    }
+
+    /**
+     * 尝试为任务占位
+     * <p>
+     * 互斥类别（含自身）均未在执行时占位成功，否则返回第一个正在执行的互斥类别，并计入{@link AdmissionMetrics}的冲突次数。
+     *
+     * @param taskType      要执行的任务类别
+     * @param exclusiveMask 互斥类别位图，应包含任务自身的类别
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskType 占位成功返回null
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public TaskType tryAcquire(TaskType taskType, long exclusiveMask) {
+        final long bit = bitOf(taskType);
+        for (; ; ) {
+            long current = this.runningMask.get();
+            long conflict = current & (exclusiveMask | bit);
+            if (0L != conflict) {
+                TaskType runningTaskType = TaskType.values()[Long.numberOfTrailingZeros(conflict)];
+                this.admissionMetrics.recordConflict(taskType, runningTaskType);
+                return runningTaskType;
+            }
+            if (this.runningMask.compareAndSet(current, current | bit)) {
+                return null;
+            }
+            this.admissionMetrics.recordCasRetry(taskType);
+        }
+    }
+
+    /**
+     * 登记已占位任务的执行编号
+     * @param taskType      任务类别
+     * @param taskExecuteId 执行编号
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void bind(TaskType taskType, BigDecimal taskExecuteId) {
+        this.executeIdArray.set(taskType.ordinal(), taskExecuteId);
+    }
+
+    /**
+     * 解除任务的占位
+     * @param taskType 任务类别
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void release(TaskType taskType) {
+        final long bit = bitOf(taskType);
+        this.executeIdArray.set(taskType.ordinal(), null);
+        for (; ; ) {
+            long current = this.runningMask.get();
+            if (this.runningMask.compareAndSet(current, current & ~bit)) {
+                break;
+            }
+        }
+        for (Runnable releaseListener : this.releaseListeners) {
+            try {
+                releaseListener.run();
+            } catch (RuntimeException e) {
+                logger.error("\r\n通知【" + taskType.name() + "】任务解除占位时发生异常。\r\n", e);
+            }
+        }
+    }
+
+    /**
+     * 登记解除占位的监听者，任一类别解除占位后在解除占位的线程上调用
+     * @param releaseListener 监听者
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void addReleaseListener(Runnable releaseListener) {
+        this.releaseListeners.add(releaseListener);
+    }
+
+    /**
+     * 注销解除占位的监听者
+     * @param releaseListener 监听者
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void removeReleaseListener(Runnable releaseListener) {
+        this.releaseListeners.remove(releaseListener);
+    }
+
+    /**
+     * 指定类别的任务是否正在执行
+     * @param taskType 任务类别
+     * @return boolean
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public boolean isRunning(TaskType taskType) {
+        return 0L != (this.runningMask.get() & bitOf(taskType));
+    }
+
+    /**
+     * 获取指定类别正在执行的任务的执行编号
+     * @param taskType 任务类别
+     * @return java.math.BigDecimal 未在执行或尚未登记时返回null
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public BigDecimal getExecuteId(TaskType taskType) {
+        return this.executeIdArray.get(taskType.ordinal());
+    }
+
+    /**
+     * 以任务执行记录中仍处于执行状态的记录作为外部占位
+     * @param
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private void restore() {
+        for (TaskType taskType : TaskType.values()) {
+            try {
+                TaskExecuteRecordDO latestRecord = this.taskExecuteRecordDAO.getLatestTaskExecuteRecord(taskType.toValue());
+                if (null != latestRecord && TaskStatus.RUNNING.toValue().equals(latestRecord.getStatus())
+                        && null == this.tryAcquire(taskType, 0L)) {
+                    this.bind(taskType, latestRecord.getId());
+                    this.setExternal(taskType, true);
+                    logger.warn("\r\n执行编号【" + latestRecord.getId() + "】的【" + taskType.name() + "】任务在执行记录中仍处于执行状态，在其结束前不会启动互斥任务。\r\n");
+                }
+            } catch (Exception e) {
+                logger.error("\r\n读取【" + taskType.name() + "】任务的执行记录失败。\r\n", e);
+            }
+        }
+    }
+
+    /**
+     * 与任务执行记录核对，解除已结束的外部占位
+     * @param
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private void reconcile() {
+        for (TaskType taskType : TaskType.values()) {
+            if (0L == (this.externalMask.get() & bitOf(taskType))) {
+                continue;
+            }
+            try {
+                TaskExecuteRecordDO latestRecord = this.taskExecuteRecordDAO.getLatestTaskExecuteRecord(taskType.toValue());
+                if (null == latestRecord || !TaskStatus.RUNNING.toValue().equals(latestRecord.getStatus())) {
+                    this.setExternal(taskType, false);
+                    this.release(taskType);
+                    logger.info("\r\n【" + taskType.name() + "】任务的执行记录已不在执行状态，解除占位。\r\n");
+                }
+            } catch (Exception e) {
+                logger.error("\r\n核对【" + taskType.name() + "】任务的执行记录失败。\r\n", e);
+            }
+        }
+    }
+
+    private void setExternal(TaskType taskType, boolean external) {
+        final long bit = bitOf(taskType);
+        for (; ; ) {
+            long current = this.externalMask.get();
+            if (this.externalMask.compareAndSet(current, external ? current | bit : current & ~bit)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task;
+
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureTask;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 以信号量限制并发数的执行器
+ * <p>
+ * 每个任务都会立即交给底层执行器，在其所在的线程上等待许可。
+ * 适合搭配“一任务一线程”的底层执行器（如虚拟线程），并发上限由许可数而不是线程池大小决定。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.SemaphoreBoundedTaskExecutor
+ * @author: JQY
+ * @create: 2026-10-17 11:25 Via IntelliJ IDEA
+ **/
+public class SemaphoreBoundedTaskExecutor implements AsyncListenableTaskExecutor {
+
+    private final Executor executor;
+
+    private final Semaphore semaphore;
+
+    private final int concurrencyLimit;
+
+    private final AtomicInteger activeCount = new AtomicInteger(0);
+
+    public SemaphoreBoundedTaskExecutor(Executor executor, int concurrencyLimit) {
+        if (concurrencyLimit <= 0) {
+            throw new IllegalArgumentException("并发上限必须大于0，当前为【" + concurrencyLimit + "】。");
+        }
+        this.executor = executor;
+        this.concurrencyLimit = concurrencyLimit;
+        this.semaphore = new Semaphore(concurrencyLimit, true);
+    }
+
+    /**
+     * 并发上限
+     * @param
+     * @return int
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public int getConcurrencyLimit() {
+        return this.concurrencyLimit;
+    }
+
+    /**
+     * 正在执行（已获得许可）的任务数
+     * @param
+     * @return int
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public int getActiveCount() {
+        return this.activeCount.get();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        this.executor.execute(this.bounded(task));
+    }
+
+    @Override
+    public void execute(Runnable task, long startTimeout) {
+        this.execute(task);
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        return this.submitListenable(task);
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        return this.submitListenable(task);
+    }
+
+    @Override
+    public ListenableFuture<?> submitListenable(Runnable task) {
+        ListenableFutureTask<Object> future = new ListenableFutureTask<>(task, null);
+        this.execute(future);
+        return future;
+    }
+
+    @Override
+    public <T> ListenableFuture<T> submitListenable(Callable<T> task) {
+        ListenableFutureTask<T> future = new ListenableFutureTask<>(task);
+        this.execute(future);
+        return future;
+    }
+
+    /**
+     * 包装任务：先获取许可再执行，结束后归还许可
+     * <p>
+     * 等待许可时被中断的任务不再执行；任务本身是{@link Future}时将其取消，以免等待结果的一方永远阻塞。
+     * @param task 任务
+     * @return java.lang.Runnable
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private Runnable bounded(final Runnable task) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    semaphore.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (task instanceof Future) {
+                        ((Future<?>) task).cancel(false);
+                    }
+                    return;
+                }
+                activeCount.incrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    activeCount.decrementAndGet();
+                    semaphore.release();
+                }
+            }
+        };
+    }
+}
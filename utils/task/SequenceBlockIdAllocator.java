@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task;
+
+import net.gmcc.dg.common.utils.SpringUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 按号段分配执行编号
+ * <p>
+ * 每次从数据库序列取一个值作为号段起点，随后的blockSize个编号都在内存中分配，用完再取下一段。
+ * 序列的步长（INCREMENT BY）必须等于blockSize，起始值必须大于任务执行记录表中现有的最大编号，
+ * 否则不同号段之间或与历史记录之间会出现重复编号。
+ * <p>
+ * 相关配置：
+ * basedata.task.executeIdSequence 序列名，未配置时不启用号段分配；
+ * basedata.task.executeIdBlockSize 号段大小，默认20。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.SequenceBlockIdAllocator
+ * @author: JQY
+ * @create: 2026-10-17 15:20 Via IntelliJ IDEA
+ **/
+public class SequenceBlockIdAllocator implements TaskExecuteIdAllocator {
+
+    private static final int DEFAULT_BLOCK_SIZE = 20;
+
+    private final DataSource dataSource;
+
+    private final String nextValueSql;
+
+    private final int blockSize;
+
+    /**
+     * 当前号段中下一个可分配的编号
+     */
+    private long next = 0L;
+
+    /**
+     * 当前号段的上界（不含）
+     */
+    private long limit = 0L;
+
+    public SequenceBlockIdAllocator(DataSource dataSource, String sequenceName, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("号段大小必须大于0，当前为【" + blockSize + "】。");
+        }
+        this.dataSource = dataSource;
+        this.nextValueSql = "SELECT " + sequenceName + ".NEXTVAL FROM DUAL";
+        this.blockSize = blockSize;
+    }
+
+    private static class Holder {
+        private static final SequenceBlockIdAllocator INSTANCE = fromEnvironment();
+    }
+
+    /**
+     * 获取按配置文件创建的分配器，所有任务中心共用，号段不会因任务中心实例增多而浪费
+     * @param
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.SequenceBlockIdAllocator 未配置序列名时返回null
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public static SequenceBlockIdAllocator getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * 按配置文件创建分配器
+     * @param
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.SequenceBlockIdAllocator 未配置序列名时返回null
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private static SequenceBlockIdAllocator fromEnvironment() {
+        Environment springEnv = SpringUtils.getBean(StandardEnvironment.class);
+        String sequenceName = springEnv.getProperty("basedata.task.executeIdSequence");
+        if (null == sequenceName || "".equals(sequenceName.trim())) {
+            return null;
+        }
+        int blockSize = springEnv.getProperty("basedata.task.executeIdBlockSize", Integer.class, DEFAULT_BLOCK_SIZE);
+        return new SequenceBlockIdAllocator(SpringUtils.getBean(DataSource.class), sequenceName.trim(), blockSize);
+    }
+
+    @Override
+    public synchronized BigDecimal nextId() throws SQLException {
+        if (this.next >= this.limit) {
+            long start = this.fetchBlockStart();
+            this.next = start;
+            this.limit = start + this.blockSize;
+        }
+        return BigDecimal.valueOf(this.next++);
+    }
+
+    /**
+     * 从序列取下一个号段的起点
+     * @param
+     * @return long
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private long fetchBlockStart() throws SQLException {
+        try (Connection connection = this.dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(this.nextValueSql);
+             ResultSet resultSet = statement.executeQuery()) {
+            if (!resultSet.next()) {
+                throw new SQLException("序列未返回值：" + this.nextValueSql);
+            }
+            return resultSet.getLong(1);
+        }
+    }
+}
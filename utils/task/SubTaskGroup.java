@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task;
+
+import org.slf4j.Logger;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureTask;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 一组子任务
+ * <p>
+ * 只跟踪由本组提交的子任务，不受共用线程池中其它任务的影响。
+ * 线程池拒绝执行或未分配线程池时，子任务在提交者所在的线程上执行，因此子任务数量超过线程池容量时也不会挂起。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.SubTaskGroup
+ * @author: JQY
+ * @create: 2026-10-17 10:05 Via IntelliJ IDEA
+ **/
+public class SubTaskGroup<V> {
+
+    private final AsyncListenableTaskExecutor threadPoolTaskExecutor;
+
+    private final Logger logger;
+
+    /**
+     * 按键分组派发子任务，未指定时为空
+     */
+    private final KeyedTaskScheduler keyedTaskScheduler;
+
+    private final List<ListenableFuture<V>> futureList = new ArrayList<>();
+
+    SubTaskGroup(AsyncListenableTaskExecutor threadPoolTaskExecutor, Logger logger) {
+        this(threadPoolTaskExecutor, logger, null);
+    }
+
+    SubTaskGroup(AsyncListenableTaskExecutor threadPoolTaskExecutor, Logger logger, KeyedTaskScheduler keyedTaskScheduler) {
+        this.threadPoolTaskExecutor = threadPoolTaskExecutor;
+        this.logger = logger;
+        this.keyedTaskScheduler = keyedTaskScheduler;
+    }
+
+    /**
+     * 提交一个子任务
+     *
+     * @param subTask 子任务
+     * @return org.springframework.util.concurrent.ListenableFuture<V> 子任务的完成凭据
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public ListenableFuture<V> submit(Callable<V> subTask) {
+        ListenableFuture<V> future = null;
+        if (null != this.threadPoolTaskExecutor) {
+            try {
+                future = this.threadPoolTaskExecutor.submitListenable(subTask);
+            } catch (RejectedExecutionException e) {
+                if (null != this.logger) {
+                    this.logger.warn("\r\n线程池拒绝执行子任务，转为在当前线程上执行。\r\n");
+                }
+            }
+        }
+        if (null == future) {
+            ListenableFutureTask<V> futureTask = new ListenableFutureTask<>(subTask);
+            futureTask.run();
+            future = futureTask;
+        }
+        synchronized (this.futureList) {
+            this.futureList.add(future);
+        }
+        return future;
+    }
+
+    /**
+     * 按键提交一个子任务
+     * <p>
+     * 本组以{@link TaskResource#newSubTaskGroup(int, int)}创建时，同一键的子任务受并发上限约束，各键之间轮转执行；
+     * 否则与{@link #submit(Callable)}相同。
+     *
+     * @param key     分组键，如子任务访问的主机
+     * @param subTask 子任务
+     * @return org.springframework.util.concurrent.ListenableFuture<V> 子任务的完成凭据
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public ListenableFuture<V> submit(String key, Callable<V> subTask) {
+        if (null == this.keyedTaskScheduler || null == this.threadPoolTaskExecutor) {
+            return this.submit(subTask);
+        }
+        ListenableFuture<V> future = this.keyedTaskScheduler.submit(key, subTask);
+        synchronized (this.futureList) {
+            this.futureList.add(future);
+        }
+        return future;
+    }
+
+    /**
+     * 提交一批子任务
+     *
+     * @param subTasks 子任务
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void submitAll(Collection<? extends Callable<V>> subTasks) {
+        for (Callable<V> subTask : subTasks) {
+            this.submit(subTask);
+        }
+    }
+
+    /**
+     * 等待本组所有子任务结束
+     * <p>
+     * 超时后仍未结束的子任务不会被取消，其结果状态为{@link TaskStatus#RUNNING}。
+     *
+     * @param timeout 最长等待时间（针对整组子任务）
+     * @param unit    时间单位
+     * @return java.util.List<net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.SubTaskResult<V>> 按提交顺序排列的子任务结果
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public List<SubTaskResult<V>> awaitAll(long timeout, TimeUnit unit) throws InterruptedException {
+        List<ListenableFuture<V>> futures;
+        synchronized (this.futureList) {
+            futures = new ArrayList<>(this.futureList);
+        }
+        List<SubTaskResult<V>> resultList = new ArrayList<>(futures.size());
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ListenableFuture<V> future : futures) {
+            try {
+                long remaining = Math.max(0L, deadline - System.nanoTime());
+                resultList.add(new SubTaskResult<>(TaskStatus.FINISHED, future.get(remaining, TimeUnit.NANOSECONDS), null));
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                resultList.add(new SubTaskResult<V>(TaskStatus.EXIT, null, cause instanceof Exception ? (Exception) cause : e));
+            } catch (CancellationException e) {
+                resultList.add(new SubTaskResult<V>(TaskStatus.EXIT, null, e));
+            } catch (TimeoutException e) {
+                resultList.add(new SubTaskResult<V>(TaskStatus.RUNNING, null, e));
+            }
+        }
+        return resultList;
+    }
+
+    /**
+     * 已提交的子任务数量
+     *
+     * @return int
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public int size() {
+        synchronized (this.futureList) {
+            return this.futureList.size();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task;
+
+/**
+ * 子任务执行结果
+ * <p>
+ * FINISHED：子任务正常结束；EXIT：子任务抛出异常或被取消；RUNNING：等待超时时子任务仍在执行。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.SubTaskResult
+ * @author: JQY
+ * @create: 2026-10-17 10:12 Via IntelliJ IDEA
+ **/
+public class SubTaskResult<V> extends TaskResult {
+    private V value;
+
+    public SubTaskResult(TaskStatus taskStatus, V value, Exception e) {
+        super(taskStatus, e);
+        this.value = value;
+    }
+
+    public V getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "SubTaskResult{" +
+                "taskStatus=" + getTaskStatus().name() +
+                ", value=" + value +
+                ", exception=" + getException() +
+                '}';
+    }
+}
@@ -5,9 +5,6 @@
 package net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task;
 
 import EDU.oswego.cs.dl.util.concurrent.Takable;
-import net.gmcc.dg.acr.modules.reward.basedata.dao.TaskExecuteRecordDOMapper;
-import net.gmcc.dg.acr.modules.reward.basedata.dao.entity.dborm.TaskExecuteRecordDO;
-import net.gmcc.dg.common.utils.SpringUtils;
 import org.apache.poi.ss.formula.functions.T;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,11 +27,6 @@ public class TaskCallBack implements ListenableFutureCallback<TaskResult> {
 
     private BigDecimal taskExecuteId;
 
-    /**
-     * 任务执行记录DAO
-     */
-    private TaskExecuteRecordDOMapper taskExecuteRecordDAO= SpringUtils.getBean(TaskExecuteRecordDOMapper.class);
-
     public TaskCallBack(BigDecimal taskExecuteId) {
         this.taskExecuteId = taskExecuteId;
     }
@@ -52,6 +44,8 @@ public class TaskCallBack implements ListenableFutureCallback<TaskResult> {
 
     /**
      * 任务结束以后记录任务的完成情况
+     * <p>
+     * 只把结束状态交给异步写入器，不在执行任务的线程上访问数据库。
      * @param taskResult 执行结果
      * @return boolean
      * @author JQY
@@ -59,20 +53,7 @@ public class TaskCallBack implements ListenableFutureCallback<TaskResult> {
      */
     private boolean writeTaksExecuteRecord(TaskResult taskResult){
         try {
-            TaskExecuteRecordDO executeRecord=taskExecuteRecordDAO.selectByPrimaryKey(taskExecuteId);
-            if(null==executeRecord){
-                throw new NullPointerException("不存在执行编号为【"+taskExecuteId+"】的任务执行记录。");
-            }
-            if(executeRecord.getStatus().equals(TaskStatus.RUNNING.toValue())){
-                Date now=new Date();
-                executeRecord.setStatus(taskResult.getTaskStatus().toValue());
-                executeRecord.setEndTime(now);
-                executeRecord.setRecordTime(now);
-                int daoResult=this.taskExecuteRecordDAO.updateByPrimaryKeySelective(executeRecord);
-                if(1!=daoResult){
-                    throw new Exception("执行记录更新失败，影响行数【"+daoResult+"】，未回滚。");
-                }
-            }
+            TaskExecuteRecordWriter.getInstance().submit(taskExecuteId,taskResult.getTaskStatus(),new Date());
             return true;
         } catch (Exception e) {
             logger.error("执行编号为【"+taskExecuteId+"】的任务更新执行记录失败,任务执行结果【"+taskResult.toString()+"】。",e);
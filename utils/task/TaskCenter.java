@@ -4,7 +4,6 @@
 
 package net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task;
 
-import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
@@ -14,17 +13,19 @@ import net.gmcc.dg.common.utils.SpringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
+import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.util.concurrent.ListenableFutureCallback;
 import org.springframework.util.concurrent.ListenableFutureTask;
+import org.springframework.util.concurrent.SettableListenableFuture;
 
 import javax.validation.constraints.NotNull;
 import java.math.BigDecimal;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 任务控制中心，负责管理并记录每个任务的执行情况
@@ -40,19 +41,23 @@ public class TaskCenter {
 
     private final String logName="存储在系统日志中";
     private static final Logger logger = LoggerFactory.getLogger(TaskCenter.class);
-    private Lock lock = new ReentrantLock();
+    /**
+     * 正在执行的任务登记表，所有任务中心共用
+     */
+    private final RunningTaskRegistry runningTaskRegistry = RunningTaskRegistry.getInstance();
     /**
      * 是否在任务中心所在的线程上执行任务。
      */
     private boolean executeInMainThread=false;
     /**
-     * 核心线程池
+     * 线程分配策略，决定主任务和子任务在哪里执行
      */
-    private ThreadPoolTaskExecutor mainThreadPool = new ThreadPoolTaskExecutor();
+    private TaskExecutorStrategy executorStrategy = null;
+
     /**
-     * 所有任务的子任务共用一个线程池。
+     * 执行编号分配器，为空时依赖写入时回填的主键或回查最新记录
      */
-    private ThreadPoolTaskExecutor subTaskThreadPool = new ThreadPoolTaskExecutor();
+    private TaskExecuteIdAllocator executeIdAllocator = null;
 
     /**
      * 任务执行记录DAO
@@ -60,70 +65,68 @@ public class TaskCenter {
     private TaskExecuteRecordDOMapper taskExecuteRecordDAO=SpringUtils.getBean(TaskExecuteRecordDOMapper.class);
 
     public TaskCenter(){
-        //此处可修改为读取配置文件中的线程池设置
-        ThreadFactory mainThreadFactory = new ThreadFactoryBuilder()
-                .setNameFormat("TaskCenter-主任务线程-%d").build();
-        this.mainThreadPool.setCorePoolSize(0);
-        this.mainThreadPool.setMaxPoolSize(Integer.MAX_VALUE);
-        this.mainThreadPool.setKeepAliveSeconds(10);
-        this.mainThreadPool.setQueueCapacity(-1);
-        this.mainThreadPool.setThreadFactory(mainThreadFactory);
-        this.mainThreadPool.initialize();
-        ThreadFactory subTaskThreadFactory = new ThreadFactoryBuilder()
-                .setNameFormat("TaskCenter-子任务线程-%d").build();
-        this.subTaskThreadPool.setCorePoolSize(5);
-        this.subTaskThreadPool.setMaxPoolSize(20);
-        this.subTaskThreadPool.setKeepAliveSeconds(5);
-        this.subTaskThreadPool.setQueueCapacity(10);
-        this.subTaskThreadPool.setThreadFactory(subTaskThreadFactory);
-        this.subTaskThreadPool.initialize();
+        this(new ThreadPoolExecutorStrategy());
     }
     public TaskCenter(ThreadPoolTaskExecutor mainThreadPool,ThreadPoolTaskExecutor subTaskThreadPool){
-        this.mainThreadPool=mainThreadPool;
-        this.subTaskThreadPool =subTaskThreadPool;
+        this(new ThreadPoolExecutorStrategy(mainThreadPool,subTaskThreadPool));
+    }
+    public TaskCenter(TaskExecutorStrategy executorStrategy){
+        this.executorStrategy=executorStrategy;
+        this.executeIdAllocator=SequenceBlockIdAllocator.getInstance();
+    }
+
+    public void setExecuteIdAllocator(TaskExecuteIdAllocator executeIdAllocator) {
+        this.executeIdAllocator = executeIdAllocator;
     }
 
     /**
      * 启动任务
+     * <p>
+     * 任务提交后立即返回，不再等待线程池空闲。调用方可通过返回的凭据获知本任务的完成情况，
+     * 未能获得执行许可或提交失败时返回的凭据已完成，结果为{@link TaskStatus#EXIT}。
+     * <p>
+     * 主执行器为{@link FairShareTaskExecutor}时先排队、后申请许可，见{@link #enqueueTask(Task, FairShareTaskExecutor)}。
      *
      * @param task 要执行的任务
-     * @return void
+     * @return org.springframework.util.concurrent.ListenableFuture<net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskResult> 本任务的完成凭据
      * @author JQY
      * @date 2019/5/6 17:28
      */
-    public void startTask(@NotNull Task task) throws Exception {
+    public ListenableFuture<TaskResult> startTask(@NotNull Task task) throws Exception {
         try {
+            AsyncListenableTaskExecutor mainExecutor=this.executorStrategy.getMainExecutor();
+            if(!this.executeInMainThread&&mainExecutor instanceof FairShareTaskExecutor){
+                return this.enqueueTask(task,(FairShareTaskExecutor) mainExecutor);
+            }
             BigDecimal taskExecuteId = this.getExecutePermission(task);
             if (taskExecuteId.compareTo(BigDecimal.valueOf(0)) == 1) {
                 //获得执行许可。
-                TaskResource taskResource=null;
-                if(task.isMultiThreadExecute()){
-                    taskResource=new TaskResource(taskExecuteId,this.subTaskThreadPool,task.getClass());
-                }else {
-                    taskResource=new TaskResource(taskExecuteId,null,task.getClass());
-                }
-                task.setTaskResource(taskResource);
+                task.setTaskResource(this.newTaskResource(task,taskExecuteId));
                 if(this.executeInMainThread){
-                    this.getListenableCallback(taskExecuteId).onSuccess(task.call());
+                    TaskResult taskResult=task.call();
+                    this.getListenableCallback(task.getTaskType(),taskExecuteId).onSuccess(taskResult);
+                    return this.completedFuture(taskResult);
                 }else{
                     ListenableFutureTask<TaskResult> listenableFutureTask = new ListenableFutureTask<>(task);
-                    listenableFutureTask.addCallback(this.getListenableCallback(taskExecuteId));
-                    this.mainThreadPool.submit(listenableFutureTask);
-                    int activeCount=0;
-                    do {
-                        activeCount=this.mainThreadPool.getActiveCount();
-                    }while (activeCount<=0);
-                    while (activeCount>0){
-                        //只要还有任务没做完就等着。
-                        Thread.sleep(3000);
-                        activeCount=this.mainThreadPool.getActiveCount();
+                    ListenableFutureCallback<TaskResult> callback=this.getListenableCallback(task.getTaskType(),taskExecuteId);
+                    listenableFutureTask.addCallback(callback);
+                    try {
+                        mainExecutor.execute(listenableFutureTask);
+                    } catch (RejectedExecutionException e) {
+                        //任务未能启动，结束执行记录并解除占位
+                        callback.onFailure(e);
+                        throw e;
                     }
+                    return listenableFutureTask;
                 }
             }
+            return this.completedFuture(new TaskResult(TaskStatus.EXIT, new PermissionException("无效的执行编号【" + taskExecuteId + "】。")));
         }catch (PermissionException e){
             logger.error("\r\n任务未能获得执行许可！TaskType:【"+task.getTaskType().name()+"】",e);
+            return this.completedFuture(new TaskResult(TaskStatus.EXIT, e));
         } catch (RejectedExecutionException e){
             logger.error("\r\n尝试多线程执行任务失败！TaskType:【"+task.getTaskType().name()+"】",e);
+            return this.completedFuture(new TaskResult(TaskStatus.EXIT, e));
         }catch (Exception e){
             logger.error("\r\n任务执行失败！TaskType:【"+task.getTaskType().name()+"】",e);
             throw e;
@@ -131,6 +134,32 @@ public class TaskCenter {
         }
     }
 
+    /**
+     * 启动任务并等待其执行结束
+     * <p>
+     * 只等待本任务自身的完成凭据，与线程池中的其它任务无关。
+     * 超时后任务仍会继续执行，本方法返回状态为{@link TaskStatus#RUNNING}的结果。
+     *
+     * @param task    要执行的任务
+     * @param timeout 最长等待时间
+     * @param unit    时间单位
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskResult
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public TaskResult startTaskAndWait(@NotNull Task task, long timeout, TimeUnit unit) throws Exception {
+        ListenableFuture<TaskResult> future = this.startTask(task);
+        try {
+            return future.get(timeout, unit);
+        } catch (TimeoutException e) {
+            logger.warn("\r\n等待任务执行结束超时，任务仍在执行。TaskType:【" + task.getTaskType().name() + "】");
+            return new TaskResult(TaskStatus.RUNNING, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            return new TaskResult(TaskStatus.EXIT, cause instanceof Exception ? (Exception) cause : e);
+        }
+    }
+
     /**
      * 允许在控制中心所在的线程上执行任务
      *
@@ -160,6 +189,42 @@ public class TaskCenter {
         }
     }
 
+    /**
+     * 关闭任务中心的执行器
+     * <p>
+     * 已提交的任务会继续执行完毕，之后提交的任务将被拒绝。
+     * @param
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void shutdown(){
+        this.executorStrategy.shutdown();
+    }
+
+    /**
+     * 获取任务许可申请的统计指标
+     * @param
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.AdmissionMetrics
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public AdmissionMetrics getAdmissionMetrics(){
+        return this.runningTaskRegistry.getAdmissionMetrics();
+    }
+
+    /**
+     * 获取主任务排队的统计指标
+     * @param
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskQueueMetrics 主执行器不排队（非{@link FairShareTaskExecutor}）时返回null
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public TaskQueueMetrics getQueueMetrics(){
+        AsyncListenableTaskExecutor mainExecutor=this.executorStrategy.getMainExecutor();
+        return mainExecutor instanceof FairShareTaskExecutor?((FairShareTaskExecutor) mainExecutor).getQueueMetrics():null;
+    }
+
     /**
      * 查找是否有正在执行的任务，可以选择通过currentTask对象获取当前任务的相关信息（执行编号、任务名称、开始时间、日志名）
      *
@@ -184,9 +249,9 @@ public class TaskCenter {
      * 申请执行任务的唯一途径
      * 若许可，则会返回执行编号，若不允许执行，则返回-1
      * <p>
-     * 会申请锁来保持同步
-     * <p>
-     * 如果要应对高并发场景，请修改逻辑以减小持有锁的时间
+     * 互斥检查通过进程内的登记表以CAS方式完成，不持有锁，也不查询数据库；
+     * 互斥关系按互斥关系图双向生效，互不相连的任务类别可以同时申请许可。
+     * 只有写入执行记录时才会访问数据库，执行编号由分配器预先分配，写入后无需回查。
      *
      * @param task 要执行的任务
      * @return java.math.BigDecimal
@@ -194,77 +259,246 @@ public class TaskCenter {
      * @date 2019/5/6 14:50
      */
     private BigDecimal getExecutePermission(@NotNull Task task) throws Exception {
-        Short times = 5;
-        boolean getLock = false;
         TaskType taskType=task.getTaskType();
         final String errorMsg=taskType.name()+"任务未能获得许可。";
         final String exceptionPrefix=errorMsg+"原因：";
-        for (int i = 0; i < times; ++i) {
-            if (lock.tryLock(3, TimeUnit.SECONDS)) {
-                getLock = true;
-                break;
-            }
+        final long startNanos=System.nanoTime();
+        //检查互斥逻辑许可，默认检查和自己的互斥，并按互斥关系图检查声明了与本任务互斥的其它任务
+        TaskType runningTaskType=this.runningTaskRegistry.tryAcquire(taskType,task.listExclusiveTaskType());
+        if(null!=runningTaskType){
+            this.runningTaskRegistry.getAdmissionMetrics().recordAdmission(taskType,false,System.nanoTime()-startNanos);
+            throw new PermissionException(exceptionPrefix+"存在正在执行的"+runningTaskType+"任务，执行ID为：【"+this.runningTaskRegistry.getExecuteId(runningTaskType)+"】。");
         }
+        return this.recordExecution(task,startNanos);
+    }
 
-        if (getLock) {
-            try {
-                TaskExecuteRecordDO currentTask = new TaskExecuteRecordDO();
-                Set<TaskType> exclusiveTaskTypeSet=EnumSet.noneOf(TaskType.class);
-                if(null!=task.listExclusiveTaskType()){
-                    exclusiveTaskTypeSet.addAll(task.listExclusiveTaskType());
-                }
-                if(!exclusiveTaskTypeSet.contains(taskType)){
-                    exclusiveTaskTypeSet.add(taskType);
+    /**
+     * 已在登记表中占位后，检查业务逻辑许可并写入执行记录
+     * <p>
+     * 失败时解除占位。
+     *
+     * @param task 要执行的任务
+     * @param startNanos 开始申请许可的时刻，用于统计
+     * @return java.math.BigDecimal 执行编号，未能取得时返回-1
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private BigDecimal recordExecution(@NotNull Task task,final long startNanos) throws PermissionException {
+        TaskType taskType=task.getTaskType();
+        final String exceptionPrefix=taskType.name()+"任务未能获得许可。原因：";
+        boolean admitted=false;
+        try {
+            //检查业务逻辑许可
+            if(!task.checkVocationalExecutePermission()){
+                throw new PermissionException(taskType+"任务未能获取业务逻辑许可。");
+            }
+
+            //申请新任务
+            Date now=new Date();
+            TaskExecuteRecordDO taskExecuteRecord=new TaskExecuteRecordDO();
+            taskExecuteRecord.setName(taskType.name()+"任务");
+            taskExecuteRecord.setTaskType(taskType.toValue());
+            //todo:获取定时任务详情ID
+            taskExecuteRecord.setTaskInfoId(BigDecimal.ZERO);
+            taskExecuteRecord.setStatus(TaskStatus.RUNNING.toValue());
+            taskExecuteRecord.setStratTime(now);
+            taskExecuteRecord.setRecordTime(now);
+            taskExecuteRecord.setLogName(logName);
+            if(null!=this.executeIdAllocator){
+                taskExecuteRecord.setId(this.executeIdAllocator.nextId());
+            }
+            int result=taskExecuteRecordDAO.insertSelective(taskExecuteRecord);
+            if(1==result){
+                BigDecimal taskExecuteId=taskExecuteRecord.getId();
+                if(null==taskExecuteId){
+                    //既未分配编号，写入时也未回填主键，只能回查
+                    TaskExecuteRecordDO latestRecord=taskExecuteRecordDAO.getLatestTaskExecuteRecord(taskType.toValue());
+                    taskExecuteId=null==latestRecord?null:latestRecord.getId();
                 }
-                Iterator<TaskType> item=exclusiveTaskTypeSet.iterator();
-                //检查互斥逻辑许可，默认检查和自己的互斥
-                while (item.hasNext()){
-                    if (this.isRunning(item.next(), currentTask)) {
-                        throw new PermissionException("存在正在执行的"+taskType+"任务，执行ID为：【"+currentTask.getId()+"】。");
-                    }
+                if(null==taskExecuteId){
+                    this.runningTaskRegistry.release(taskType);
+                    return BigDecimal.valueOf(-1);
                 }
-                //检查业务逻辑许可
-                if(!task.checkVocationalExecutePermission()){
-                    throw new PermissionException(taskType+"任务未能获取业务逻辑许可。");
+                this.runningTaskRegistry.bind(taskType,taskExecuteId);
+                admitted=true;
+                return taskExecuteId;
+            }else {
+                throw new PermissionException("执行记录写入失败，本次写入："+result+"条记录。");
+            }
+        } catch (Exception e) {
+            this.runningTaskRegistry.release(taskType);
+            throw new PermissionException(exceptionPrefix+e.getMessage(),e);
+        } finally {
+            this.runningTaskRegistry.getAdmissionMetrics().recordAdmission(taskType,admitted,System.nanoTime()-startNanos);
+        }
+    }
+
+    /**
+     * 排队启动任务
+     * <p>
+     * 先排队、后申请许可：任务被选中时才在登记表中占位，互斥任务正在执行的类别继续排队，
+     * 待互斥任务结束（登记表通知{@link FairShareTaskExecutor#retryDispatch()}）后再重新选择，而不是以{@link PermissionException}拒绝；
+     * 占位后在执行线程上检查业务逻辑许可并写入执行记录。因此排队中的任务既不占位、也没有执行记录，同一类别可以有多个任务排队。
+     *
+     * @param task 要执行的任务
+     * @param fairShareExecutor 主执行器
+     * @return org.springframework.util.concurrent.ListenableFuture<net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskResult>
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private ListenableFuture<TaskResult> enqueueTask(final Task task,FairShareTaskExecutor fairShareExecutor){
+        final TaskType taskType=task.getTaskType();
+        this.runningTaskRegistry.getExclusionGraph().register(taskType,task.listExclusiveTaskType());
+        //是否持有登记表中的占位，由先到者解除
+        final AtomicBoolean holding=new AtomicBoolean(false);
+        final AtomicBoolean started=new AtomicBoolean(false);
+        final ListenableFutureTask<TaskResult> listenableFutureTask=new ListenableFutureTask<>(new Callable<TaskResult>() {
+            @Override
+            public TaskResult call() throws Exception {
+                started.set(true);
+                return runAdmitted(task,holding);
+            }
+        });
+        listenableFutureTask.addCallback(new ListenableFutureCallback<TaskResult>() {
+            @Override
+            public void onFailure(Throwable throwable) {
+                if(!started.get()){
+                    //已占位但未能执行（被取消或被底层执行器拒绝）
+                    releaseIfHolding(taskType,holding);
                 }
+            }
 
-                //申请新任务
-                Date now=new Date();
-                TaskExecuteRecordDO taskExecuteRecord=new TaskExecuteRecordDO();
-                taskExecuteRecord.setName(taskType.name()+"任务");
-                taskExecuteRecord.setTaskType(taskType.toValue());
-                //todo:获取定时任务详情ID
-                taskExecuteRecord.setTaskInfoId(BigDecimal.ZERO);
-                taskExecuteRecord.setStatus(TaskStatus.RUNNING.toValue());
-                taskExecuteRecord.setStratTime(now);
-                taskExecuteRecord.setRecordTime(now);
-                taskExecuteRecord.setLogName(logName);
-                int result=taskExecuteRecordDAO.insertSelective(taskExecuteRecord);
-                if(1==result){
-                    taskExecuteRecord=taskExecuteRecordDAO.getLatestTaskExecuteRecord(taskType.toValue());
-                    return null==taskExecuteRecord?BigDecimal.valueOf(-1):taskExecuteRecord.getId();
-                }else {
-                    throw new PermissionException("执行记录写入失败，本次写入："+result+"条记录。");
+            @Override
+            public void onSuccess(TaskResult taskResult) {
+            }
+        });
+        fairShareExecutor.execute(listenableFutureTask,taskType,task.getPriority(),new FairShareTaskExecutor.AdmissionGate() {
+            @Override
+            public boolean tryAdmit() {
+                if(listenableFutureTask.isDone()){
+                    //排队期间已被取消，出队即可
+                    return true;
                 }
+                if(null!=runningTaskRegistry.tryAcquire(taskType,runningTaskRegistry.getExclusionGraph().exclusiveMaskOf(taskType))){
+                    return false;
+                }
+                holding.set(true);
+                return true;
+            }
+        });
+        return listenableFutureTask;
+    }
 
-            } catch (Exception e) {
-                throw new PermissionException(exceptionPrefix+e.getMessage(),e);
+    /**
+     * 在执行线程上完成许可申请并执行已占位的任务，结束后提交完成情况并解除占位
+     * @param task 要执行的任务
+     * @param holding 是否持有占位
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskResult
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private TaskResult runAdmitted(Task task,AtomicBoolean holding) throws Exception {
+        final TaskType taskType=task.getTaskType();
+        if(!holding.get()){
+            return new TaskResult(TaskStatus.EXIT, new PermissionException(taskType.name()+"任务已被取消。"));
+        }
+        BigDecimal taskExecuteId;
+        try {
+            taskExecuteId=this.recordExecution(task,System.nanoTime());
+        } catch (PermissionException e) {
+            //recordExecution已解除占位
+            holding.set(false);
+            logger.error("\r\n任务未能获得执行许可！TaskType:【"+taskType.name()+"】",e);
+            return new TaskResult(TaskStatus.EXIT, e);
+        }
+        if (taskExecuteId.compareTo(BigDecimal.valueOf(0)) != 1) {
+            holding.set(false);
+            return new TaskResult(TaskStatus.EXIT, new PermissionException("无效的执行编号【" + taskExecuteId + "】。"));
+        }
+        task.setTaskResource(this.newTaskResource(task,taskExecuteId));
+        TaskCallBack taskCallBack=new TaskCallBack(taskExecuteId);
+        TaskResult taskResult;
+        try {
+            taskResult=task.call();
+        } catch (Exception e) {
+            try {
+                taskCallBack.onFailure(e);
             } finally {
-                lock.unlock();
+                this.releaseIfHolding(taskType,holding);
             }
-        } else {
-            throw new PermissionException(exceptionPrefix+"有其它任务正在申请执行许可。");
+            throw e;
+        }
+        try {
+            taskCallBack.onSuccess(taskResult);
+        } finally {
+            this.releaseIfHolding(taskType,holding);
         }
+        return taskResult;
+    }
+
+    private void releaseIfHolding(TaskType taskType,AtomicBoolean holding){
+        if(holding.compareAndSet(true,false)){
+            this.runningTaskRegistry.release(taskType);
+        }
+    }
+
+    /**
+     * 为已获得执行许可的任务分配执行资源
+     * @param task 任务
+     * @param taskExecuteId 执行编号
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskResource
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private TaskResource newTaskResource(Task task,BigDecimal taskExecuteId){
+        return new TaskResource(taskExecuteId,task.isMultiThreadExecute()?this.executorStrategy:null,task.getTaskType(),task.getClass());
     }
 
     /**
      * 获取任务回调对象
+     * <p>
+     * 任务结束后先提交完成情况（由{@link TaskExecuteRecordWriter}异步写入），再在回调中同步解除任务在登记表中的占位，
+     * 之后注册的回调（如{@link TaskDagScheduler}启动下游任务）执行时占位已解除。
+     * 占位解除时执行记录可能尚未写入，此时重启进程由{@link RunningTaskRegistry}的恢复与核对处理。
+     * @param taskType 任务类别
      * @param taskExecuteId 执行记录编号
      * @return org.springframework.util.concurrent.ListenableFutureCallback<net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskResult>
      * @author JQY
      * @date 2019/5/15 12:04
      */
-    private ListenableFutureCallback<TaskResult> getListenableCallback(BigDecimal taskExecuteId){
-        return new TaskCallBack(taskExecuteId) ;
+    private ListenableFutureCallback<TaskResult> getListenableCallback(final TaskType taskType,BigDecimal taskExecuteId){
+        final TaskCallBack taskCallBack=new TaskCallBack(taskExecuteId);
+        return new ListenableFutureCallback<TaskResult>() {
+            @Override
+            public void onFailure(Throwable throwable) {
+                try {
+                    taskCallBack.onFailure(throwable);
+                } finally {
+                    runningTaskRegistry.release(taskType);
+                }
+            }
+
+            @Override
+            public void onSuccess(TaskResult taskResult) {
+                try {
+                    taskCallBack.onSuccess(taskResult);
+                } finally {
+                    runningTaskRegistry.release(taskType);
+                }
+            }
+        };
+    }
+
+    /**
+     * 包装一个已完成的任务凭据
+     * @param taskResult 执行结果
+     * @return org.springframework.util.concurrent.ListenableFuture<net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskResult>
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private ListenableFuture<TaskResult> completedFuture(TaskResult taskResult){
+        SettableListenableFuture<TaskResult> future = new SettableListenableFuture<>();
+        future.set(taskResult);
+        return future;
     }
-}
+}
\ No newline at end of file
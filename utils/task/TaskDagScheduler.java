@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import javax.validation.constraints.NotNull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按依赖关系调度任务（有向无环图）
+ * <p>
+ * 各任务通过{@link Manageable#listUpstreamTaskType()}声明上游任务，例如FTP→SDS→MDS。
+ * 没有上游的任务同时启动；某个任务的上游全部正常完成后立即经由任务中心启动该任务，互不依赖的分支并行执行。
+ * 上游任务未正常完成时，其所有下游任务都不会启动，结果为{@link TaskStatus#EXIT}。
+ * <p>
+ * 声明的上游任务若不在本次调度范围内，则视为已满足。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskDagScheduler
+ * @author: JQY
+ * @create: 2026-10-17 16:40 Via IntelliJ IDEA
+ **/
+public class TaskDagScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskDagScheduler.class);
+
+    private final TaskCenter taskCenter;
+
+    private final Map<TaskType, Task> taskMap = new EnumMap<>(TaskType.class);
+
+    /**
+     * 下游任务，键为上游任务类别
+     */
+    private final Map<TaskType, List<TaskType>> downstreamMap = new EnumMap<>(TaskType.class);
+
+    /**
+     * 尚未完成的上游任务数
+     */
+    private final Map<TaskType, Integer> pendingUpstreamMap = new EnumMap<>(TaskType.class);
+
+    private final Map<TaskType, TaskResult> resultMap = new EnumMap<>(TaskType.class);
+
+    private final SettableListenableFuture<Map<TaskType, TaskResult>> completion = new SettableListenableFuture<>();
+
+    private boolean started = false;
+
+    public TaskDagScheduler(TaskCenter taskCenter) {
+        this.taskCenter = taskCenter;
+    }
+
+    /**
+     * 加入一个任务，每个任务类别只能加入一次
+     *
+     * @param task 要调度的任务
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskDagScheduler
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public synchronized TaskDagScheduler addTask(@NotNull Task task) {
+        if (this.started) {
+            throw new IllegalStateException("调度已开始，不能再加入任务。");
+        }
+        if (this.taskMap.containsKey(task.getTaskType())) {
+            throw new IllegalArgumentException("【" + task.getTaskType().name() + "】任务已加入调度。");
+        }
+        this.taskMap.put(task.getTaskType(), task);
+        return this;
+    }
+
+    /**
+     * 开始调度
+     * <p>
+     * 立即返回，全部任务结束（或因上游失败而跳过）后返回的凭据完成。
+     *
+     * @param
+     * @return org.springframework.util.concurrent.ListenableFuture<java.util.Map<net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskType,net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskResult>> 各任务的执行结果
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public ListenableFuture<Map<TaskType, TaskResult>> start() {
+        List<TaskType> readyList = new ArrayList<>();
+        synchronized (this) {
+            if (this.started) {
+                throw new IllegalStateException("调度已开始，不能重复开始。");
+            }
+            this.buildGraph();
+            this.started = true;
+            if (this.taskMap.isEmpty()) {
+                this.completion.set(this.resultMap);
+                return this.completion;
+            }
+            for (Map.Entry<TaskType, Integer> entry : this.pendingUpstreamMap.entrySet()) {
+                if (0 == entry.getValue()) {
+                    readyList.add(entry.getKey());
+                }
+            }
+        }
+        for (TaskType taskType : readyList) {
+            this.launch(taskType);
+        }
+        return this.completion;
+    }
+
+    /**
+     * 建立依赖关系并检查是否存在环
+     * @param
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private void buildGraph() {
+        for (TaskType taskType : this.taskMap.keySet()) {
+            this.downstreamMap.put(taskType, new ArrayList<TaskType>());
+            this.pendingUpstreamMap.put(taskType, 0);
+        }
+        for (Task task : this.taskMap.values()) {
+            Set<TaskType> upstreamSet = task.listUpstreamTaskType();
+            if (null == upstreamSet) {
+                continue;
+            }
+            for (TaskType upstream : upstreamSet) {
+                if (upstream == task.getTaskType()) {
+                    throw new IllegalArgumentException("【" + upstream.name() + "】任务不能依赖自身。");
+                }
+                if (!this.taskMap.containsKey(upstream)) {
+                    logger.info("\r\n【" + task.getTaskType().name() + "】任务的上游【" + upstream.name() + "】任务不在本次调度范围内，视为已满足。\r\n");
+                    continue;
+                }
+                this.downstreamMap.get(upstream).add(task.getTaskType());
+                this.pendingUpstreamMap.put(task.getTaskType(), this.pendingUpstreamMap.get(task.getTaskType()) + 1);
+            }
+        }
+        //拓扑排序检查环
+        Map<TaskType, Integer> inDegreeMap = new EnumMap<>(this.pendingUpstreamMap);
+        Deque<TaskType> queue = new ArrayDeque<>();
+        for (Map.Entry<TaskType, Integer> entry : inDegreeMap.entrySet()) {
+            if (0 == entry.getValue()) {
+                queue.add(entry.getKey());
+            }
+        }
+        int visited = 0;
+        while (!queue.isEmpty()) {
+            TaskType taskType = queue.poll();
+            visited++;
+            for (TaskType downstream : this.downstreamMap.get(taskType)) {
+                int inDegree = inDegreeMap.get(downstream) - 1;
+                inDegreeMap.put(downstream, inDegree);
+                if (0 == inDegree) {
+                    queue.add(downstream);
+                }
+            }
+        }
+        if (visited != this.taskMap.size()) {
+            throw new IllegalArgumentException("任务之间的依赖关系存在环：" + this.pendingUpstreamMap.keySet() + "。");
+        }
+    }
+
+    /**
+     * 通过任务中心启动任务
+     * @param taskType 任务类别
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private void launch(final TaskType taskType) {
+        ListenableFuture<TaskResult> future;
+        try {
+            future = this.taskCenter.startTask(this.taskMap.get(taskType));
+        } catch (Exception e) {
+            this.onTaskDone(taskType, new TaskResult(TaskStatus.EXIT, e));
+            return;
+        }
+        future.addCallback(new ListenableFutureCallback<TaskResult>() {
+            @Override
+            public void onSuccess(TaskResult taskResult) {
+                onTaskDone(taskType, null == taskResult ? new TaskResult(TaskStatus.EXIT, null) : taskResult);
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                onTaskDone(taskType, new TaskResult(TaskStatus.EXIT, throwable instanceof Exception ? (Exception) throwable : null));
+            }
+        });
+    }
+
+    /**
+     * 任务结束后启动已就绪的下游任务，或跳过上游失败的下游任务
+     * @param taskType 结束的任务类别
+     * @param taskResult 执行结果
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private void onTaskDone(TaskType taskType, TaskResult taskResult) {
+        List<TaskType> readyList = new ArrayList<>();
+        boolean allDone;
+        synchronized (this) {
+            this.resultMap.put(taskType, taskResult);
+            if (TaskStatus.FINISHED == taskResult.getTaskStatus()) {
+                for (TaskType downstream : this.downstreamMap.get(taskType)) {
+                    int pending = this.pendingUpstreamMap.get(downstream) - 1;
+                    this.pendingUpstreamMap.put(downstream, pending);
+                    if (0 == pending && !this.resultMap.containsKey(downstream)) {
+                        readyList.add(downstream);
+                    }
+                }
+            } else {
+                this.skipDownstream(taskType);
+            }
+            allDone = this.resultMap.size() == this.taskMap.size();
+        }
+        for (TaskType downstream : readyList) {
+            this.launch(downstream);
+        }
+        if (allDone) {
+            this.completion.set(this.resultMap);
+        }
+    }
+
+    /**
+     * 跳过上游未正常完成的所有下游任务
+     * @param taskType 未正常完成的任务类别
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private void skipDownstream(TaskType taskType) {
+        for (TaskType downstream : this.downstreamMap.get(taskType)) {
+            if (this.resultMap.containsKey(downstream)) {
+                continue;
+            }
+            logger.warn("\r\n上游【" + taskType.name() + "】任务未正常完成，跳过【" + downstream.name() + "】任务。\r\n");
+            this.resultMap.put(downstream, new TaskResult(TaskStatus.EXIT,
+                    new PermissionException("上游【" + taskType.name() + "】任务未正常完成。")));
+            this.skipDownstream(downstream);
+        }
+    }
+}
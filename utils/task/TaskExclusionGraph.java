@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 任务互斥关系图
+ * <p>
+ * 由各任务的{@link Manageable#listExclusiveTaskType()}汇总而成的无向图：A声明与B互斥，则B也与A互斥。
+ * 图中不相连的任务类别可以同时获得执行许可。
+ * <p>
+ * 每个顶点的邻接关系以任务类别序号为位存放在位图中，只增不减。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskExclusionGraph
+ * @author: JQY
+ * @create: 2026-10-17 14:05 Via IntelliJ IDEA
+ **/
+public class TaskExclusionGraph {
+
+    private final AtomicLongArray adjacencyArray = new AtomicLongArray(TaskType.values().length);
+
+    /**
+     * 登记任务声明的互斥类别
+     *
+     * @param taskType          任务类别
+     * @param exclusiveTaskType 任务声明的互斥类别，可空
+     * @return long 该任务类别当前的互斥位图（含自身）
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public long register(TaskType taskType, Collection<TaskType> exclusiveTaskType) {
+        if (null != exclusiveTaskType) {
+            final long selfBit = 1L << taskType.ordinal();
+            for (TaskType other : exclusiveTaskType) {
+                if (null == other || other == taskType) {
+                    continue;
+                }
+                this.addEdge(taskType.ordinal(), 1L << other.ordinal());
+                this.addEdge(other.ordinal(), selfBit);
+            }
+        }
+        return this.exclusiveMaskOf(taskType);
+    }
+
+    /**
+     * 获取任务类别的互斥位图（含自身）
+     *
+     * @param taskType 任务类别
+     * @return long
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public long exclusiveMaskOf(TaskType taskType) {
+        return this.adjacencyArray.get(taskType.ordinal()) | (1L << taskType.ordinal());
+    }
+
+    /**
+     * 获取与任务类别互斥的所有类别（含自身）
+     *
+     * @param taskType 任务类别
+     * @return java.util.Set<net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskType>
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public Set<TaskType> listExclusiveTaskType(TaskType taskType) {
+        long mask = this.exclusiveMaskOf(taskType);
+        Set<TaskType> taskTypeSet = EnumSet.noneOf(TaskType.class);
+        for (TaskType candidate : TaskType.values()) {
+            if (0L != (mask & (1L << candidate.ordinal()))) {
+                taskTypeSet.add(candidate);
+            }
+        }
+        return taskTypeSet;
+    }
+
+    private void addEdge(int index, long bit) {
+        for (; ; ) {
+            long current = this.adjacencyArray.get(index);
+            if (0L != (current & bit) || this.adjacencyArray.compareAndSet(index, current, current | bit)) {
+                return;
+            }
+        }
+    }
+}
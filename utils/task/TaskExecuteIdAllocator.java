@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task;
+
+import java.math.BigDecimal;
+
+/**
+ * 任务执行编号分配器
+ * <p>
+ * 在写入任务执行记录之前分配执行编号，写入后无需再回查刚写入的记录。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskExecuteIdAllocator
+ * @author: JQY
+ * @create: 2026-10-17 15:10 Via IntelliJ IDEA
+ **/
+public interface TaskExecuteIdAllocator {
+
+    /**
+     * 分配一个新的执行编号
+     * @param
+     * @return java.math.BigDecimal
+     * @author JQY
+     * @date 2026/10/17
+     */
+    BigDecimal nextId() throws Exception;
+}
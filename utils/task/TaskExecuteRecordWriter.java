@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task;
+
+import net.gmcc.dg.acr.modules.reward.basedata.dao.TaskExecuteRecordDOMapper;
+import net.gmcc.dg.acr.modules.reward.basedata.dao.entity.dborm.TaskExecuteRecordDO;
+import net.gmcc.dg.common.utils.SpringUtils;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任务执行记录的异步批量写入器
+ * <p>
+ * 任务结束时只把状态变更放入有界队列，由专门的写入线程合并同一执行编号的多次变更后，以JDBC批处理写入数据库，
+ * 执行任务的线程不再等待数据库。
+ * <p>
+ * 队列已满时变更转入无界的溢出队列，同样由写入线程写入，不丢弃任何变更，也不在调用者线程上访问数据库；
+ * 进程退出时会写完两个队列中剩余的变更，只有关闭之后才提交的变更在调用者线程上直接写入。
+ * <p>
+ * 与原先逐条更新时一样，只更新仍处于执行状态的记录（条件写在UPDATE的WHERE中，见{@link TaskExecuteRecordDOMapper#updateEndStatusIfRunning}），
+ * 已被结束（如人工处理）的记录不会被覆盖。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskExecuteRecordWriter
+ * @author: JQY
+ * @create: 2026-10-17 16:02 Via IntelliJ IDEA
+ **/
+public class TaskExecuteRecordWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskExecuteRecordWriter.class);
+
+    /**
+     * 队列容量
+     */
+    private static final int QUEUE_CAPACITY = 1024;
+
+    /**
+     * 每批最多写入的记录数
+     */
+    private static final int BATCH_SIZE = 200;
+
+    /**
+     * 进程退出时等待写入线程结束的最长时间（秒）
+     */
+    private static final long CLOSE_TIMEOUT_SECONDS = 30L;
+
+    private final BlockingQueue<TaskExecuteRecordDO> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    /**
+     * 有界队列已满时的溢出队列，由写入线程优先写入
+     */
+    private final Queue<TaskExecuteRecordDO> overflowQueue = new ConcurrentLinkedQueue<>();
+
+    private final TaskExecuteRecordDOMapper taskExecuteRecordDAO;
+
+    /**
+     * 用于批处理写入，未配置MyBatis时为空，逐条写入
+     */
+    private final SqlSessionFactory sqlSessionFactory;
+
+    private final Thread writerThread;
+
+    private volatile boolean running = true;
+
+    private TaskExecuteRecordWriter() {
+        this.taskExecuteRecordDAO = SpringUtils.getBean(TaskExecuteRecordDOMapper.class);
+        SqlSessionFactory factory = null;
+        try {
+            factory = SpringUtils.getBean(SqlSessionFactory.class);
+        } catch (Exception e) {
+            logger.warn("\r\n未找到SqlSessionFactory，任务执行记录将逐条写入。\r\n", e);
+        }
+        this.sqlSessionFactory = factory;
+        this.writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "TaskCenter-执行记录写入线程");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                close();
+            }
+        }, "TaskCenter-执行记录写入线程-退出"));
+    }
+
+    private static class Holder {
+        private static final TaskExecuteRecordWriter INSTANCE = new TaskExecuteRecordWriter();
+    }
+
+    /**
+     * 获取进程内唯一的写入器
+     * @param
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskExecuteRecordWriter
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public static TaskExecuteRecordWriter getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * 提交任务的结束状态
+     * @param taskExecuteId 执行编号
+     * @param taskStatus 结束状态
+     * @param endTime 结束时间
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void submit(BigDecimal taskExecuteId, TaskStatus taskStatus, Date endTime) {
+        TaskExecuteRecordDO executeRecord = new TaskExecuteRecordDO();
+        executeRecord.setId(taskExecuteId);
+        executeRecord.setStatus(taskStatus.toValue());
+        executeRecord.setEndTime(endTime);
+        executeRecord.setRecordTime(endTime);
+        if (!this.running) {
+            logger.warn("\r\n执行记录写入器已关闭，执行编号【" + taskExecuteId + "】的执行记录改为直接写入。\r\n");
+            this.writeOne(executeRecord);
+            return;
+        }
+        if (!this.queue.offer(executeRecord)) {
+            this.overflowQueue.add(executeRecord);
+            logger.warn("\r\n执行记录写入队列已满，执行编号【" + taskExecuteId + "】的执行记录转入溢出队列。\r\n");
+        }
+    }
+
+    /**
+     * 停止写入线程，并写完队列中剩余的变更
+     * @param
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void close() {
+        this.running = false;
+        this.writerThread.interrupt();
+        try {
+            this.writerThread.join(TimeUnit.SECONDS.toMillis(CLOSE_TIMEOUT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<TaskExecuteRecordDO> remaining = new ArrayList<>();
+        this.queue.drainTo(remaining);
+        this.drainOverflow(remaining, Integer.MAX_VALUE);
+        if (!remaining.isEmpty()) {
+            this.flush(remaining);
+        }
+    }
+
+    private void writeLoop() {
+        List<TaskExecuteRecordDO> batch = new ArrayList<>(BATCH_SIZE);
+        while (this.running || !this.queue.isEmpty() || !this.overflowQueue.isEmpty()) {
+            try {
+                //溢出队列中的变更只在有界队列已满时产生，先于等待写入
+                this.drainOverflow(batch, BATCH_SIZE);
+                if (batch.isEmpty()) {
+                    TaskExecuteRecordDO first = this.queue.poll(1, TimeUnit.SECONDS);
+                    if (null == first) {
+                        continue;
+                    }
+                    batch.add(first);
+                }
+                this.queue.drainTo(batch, BATCH_SIZE - batch.size());
+                this.flush(batch);
+            } catch (InterruptedException e) {
+                if (this.running) {
+                    continue;
+                }
+            } catch (Exception e) {
+                logger.error("\r\n执行记录写入线程异常。\r\n", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void drainOverflow(List<TaskExecuteRecordDO> batch, int maxSize) {
+        TaskExecuteRecordDO executeRecord;
+        while (batch.size() < maxSize && null != (executeRecord = this.overflowQueue.poll())) {
+            batch.add(executeRecord);
+        }
+    }
+
+    /**
+     * 合并同一执行编号的变更后批量写入
+     * @param batch 待写入的变更
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private void flush(List<TaskExecuteRecordDO> batch) {
+        Map<BigDecimal, TaskExecuteRecordDO> coalesced = new LinkedHashMap<>();
+        for (TaskExecuteRecordDO executeRecord : batch) {
+            coalesced.put(executeRecord.getId(), executeRecord);
+        }
+        if (null != this.sqlSessionFactory) {
+            try (SqlSession sqlSession = this.sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+                TaskExecuteRecordDOMapper batchMapper = sqlSession.getMapper(TaskExecuteRecordDOMapper.class);
+                List<TaskExecuteRecordDO> recordList = new ArrayList<>(coalesced.values());
+                for (TaskExecuteRecordDO executeRecord : recordList) {
+                    batchMapper.updateEndStatusIfRunning(executeRecord, TaskStatus.RUNNING.toValue());
+                }
+                int[] updateCounts = flattenUpdateCounts(sqlSession.flushStatements());
+                sqlSession.commit();
+                if (updateCounts.length == recordList.size()) {
+                    for (int i = 0; i < updateCounts.length; i++) {
+                        if (0 == updateCounts[i]) {
+                            this.logNotRunning(recordList.get(i));
+                        }
+                    }
+                } else {
+                    logger.warn("\r\n批量写入【" + recordList.size() + "】条执行记录，驱动返回【" + updateCounts.length + "】个更新计数，无法逐条核对。\r\n");
+                }
+                return;
+            } catch (Exception e) {
+                logger.error("\r\n批量写入【" + coalesced.size() + "】条执行记录失败，改为逐条写入。\r\n", e);
+            }
+        }
+        for (TaskExecuteRecordDO executeRecord : coalesced.values()) {
+            this.writeOne(executeRecord);
+        }
+    }
+
+    /**
+     * 按语句顺序展开批处理的更新计数
+     * <p>
+     * 驱动只返回{@link Statement#SUCCESS_NO_INFO}时无法得知是否更新，按已更新处理。
+     * @param batchResults flushStatements的结果
+     * @return int[]
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private static int[] flattenUpdateCounts(List<BatchResult> batchResults) {
+        List<Integer> updateCountList = new ArrayList<>();
+        for (BatchResult batchResult : batchResults) {
+            for (int updateCount : batchResult.getUpdateCounts()) {
+                updateCountList.add(Statement.SUCCESS_NO_INFO == updateCount ? 1 : updateCount);
+            }
+        }
+        int[] updateCounts = new int[updateCountList.size()];
+        for (int i = 0; i < updateCounts.length; i++) {
+            updateCounts[i] = updateCountList.get(i);
+        }
+        return updateCounts;
+    }
+
+    private void logNotRunning(TaskExecuteRecordDO executeRecord) {
+        logger.warn("\r\n执行编号为【" + executeRecord.getId() + "】的执行记录不存在或已不在执行状态，未更新为【"
+                + TaskStatus.getTaskStatus(executeRecord.getStatus()) + "】。\r\n");
+    }
+
+    private void writeOne(TaskExecuteRecordDO executeRecord) {
+        try {
+            int daoResult = this.taskExecuteRecordDAO.updateEndStatusIfRunning(executeRecord, TaskStatus.RUNNING.toValue());
+            if (0 == daoResult) {
+                this.logNotRunning(executeRecord);
+            } else if (1 != daoResult) {
+                throw new Exception("执行记录更新失败，影响行数【" + daoResult + "】，未回滚。");
+            }
+        } catch (Exception e) {
+            logger.error("执行编号为【" + executeRecord.getId() + "】的任务更新执行记录失败,任务执行状态【" + TaskStatus.getTaskStatus(executeRecord.getStatus()) + "】。", e);
+        }
+    }
+}
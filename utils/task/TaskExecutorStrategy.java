@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task;
+
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+
+/**
+ * 任务中心的线程分配策略
+ * <p>
+ * 决定主任务与各类任务的子任务分别在哪个执行器上执行。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskExecutorStrategy
+ * @author: JQY
+ * @create: 2026-10-17 11:02 Via IntelliJ IDEA
+ **/
+public interface TaskExecutorStrategy {
+
+    /**
+     * 获取执行主任务的执行器
+     * @param
+     * @return org.springframework.core.task.AsyncListenableTaskExecutor
+     * @author JQY
+     * @date 2026/10/17
+     */
+    AsyncListenableTaskExecutor getMainExecutor();
+
+    /**
+     * 获取执行指定类别任务的子任务的执行器
+     * @param taskType 任务类别
+     * @return org.springframework.core.task.AsyncListenableTaskExecutor
+     * @author JQY
+     * @date 2026/10/17
+     */
+    AsyncListenableTaskExecutor getSubTaskExecutor(TaskType taskType);
+
+    /**
+     * 指定类别任务的子任务的常规并发数：线程池为核心线程数，信号量执行器为并发上限
+     * @param taskType 任务类别
+     * @return int
+     * @author JQY
+     * @date 2026/10/17
+     */
+    int getSubTaskConcurrencyLimit(TaskType taskType);
+
+    /**
+     * 指定类别任务的子任务执行器中正在执行的子任务数
+     * @param taskType 任务类别
+     * @return int
+     * @author JQY
+     * @date 2026/10/17
+     */
+    int getSubTaskActiveCount(TaskType taskType);
+
+    /**
+     * 关闭所有执行器，已提交的任务会继续执行完毕
+     * @param
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    void shutdown();
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 主任务排队的统计指标，按任务类别分别统计
+ * <p>
+ * 包括：当前排队数、累计排队数、累计启动数、排队等待的耗时。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskQueueMetrics
+ * @author: JQY
+ * @create: 2026-10-17 02:40 Via IntelliJ IDEA
+ **/
+public class TaskQueueMetrics {
+
+    private static final int TYPE_COUNT = TaskType.values().length;
+
+    private final AtomicIntegerArray queueDepth = new AtomicIntegerArray(TYPE_COUNT);
+
+    private final AtomicLongArray enqueuedCount = new AtomicLongArray(TYPE_COUNT);
+
+    private final AtomicLongArray dispatchedCount = new AtomicLongArray(TYPE_COUNT);
+
+    private final AtomicLongArray totalWaitNanos = new AtomicLongArray(TYPE_COUNT);
+
+    private final AtomicLongArray maxWaitNanos = new AtomicLongArray(TYPE_COUNT);
+
+    void recordEnqueue(TaskType taskType) {
+        final int index = taskType.ordinal();
+        this.enqueuedCount.incrementAndGet(index);
+        this.queueDepth.incrementAndGet(index);
+    }
+
+    /**
+     * 记录一次出队及其等待时间
+     * @param taskType 任务类别
+     * @param dispatched 是否已交给底层执行器（否则为被拒或被取消）
+     * @param waitNanos 排队等待的耗时（纳秒）
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    void recordDequeue(TaskType taskType, boolean dispatched, long waitNanos) {
+        final int index = taskType.ordinal();
+        this.queueDepth.decrementAndGet(index);
+        if (!dispatched) {
+            return;
+        }
+        this.dispatchedCount.incrementAndGet(index);
+        this.totalWaitNanos.addAndGet(index, waitNanos);
+        for (; ; ) {
+            long max = this.maxWaitNanos.get(index);
+            if (waitNanos <= max || this.maxWaitNanos.compareAndSet(index, max, waitNanos)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 当前排队等待启动的任务数
+     * @param taskType 任务类别
+     * @return int
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public int getQueueDepth(TaskType taskType) {
+        return this.queueDepth.get(taskType.ordinal());
+    }
+
+    public long getEnqueuedCount(TaskType taskType) {
+        return this.enqueuedCount.get(taskType.ordinal());
+    }
+
+    public long getDispatchedCount(TaskType taskType) {
+        return this.dispatchedCount.get(taskType.ordinal());
+    }
+
+    /**
+     * 已启动任务的平均排队时间（毫秒）
+     * @param taskType 任务类别
+     * @return long
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public long getAverageWaitMillis(TaskType taskType) {
+        final int index = taskType.ordinal();
+        long count = this.dispatchedCount.get(index);
+        return 0L == count ? 0L : TimeUnit.NANOSECONDS.toMillis(this.totalWaitNanos.get(index) / count);
+    }
+
+    public long getMaxWaitMillis(TaskType taskType) {
+        return TimeUnit.NANOSECONDS.toMillis(this.maxWaitNanos.get(taskType.ordinal()));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("TaskQueueMetrics{");
+        for (TaskType taskType : TaskType.values()) {
+            builder.append(taskType.name())
+                    .append("={depth=").append(this.getQueueDepth(taskType))
+                    .append(", enqueued=").append(this.getEnqueuedCount(taskType))
+                    .append(", dispatched=").append(this.getDispatchedCount(taskType))
+                    .append(", avgWaitMillis=").append(this.getAverageWaitMillis(taskType))
+                    .append(", maxWaitMillis=").append(this.getMaxWaitMillis(taskType))
+                    .append("} ");
+        }
+        return builder.append('}').toString();
+    }
+}
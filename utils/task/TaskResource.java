@@ -6,7 +6,7 @@ package net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
 import org.springframework.util.concurrent.ListenableFuture;
 
 import java.math.BigDecimal;
@@ -24,14 +24,27 @@ public class TaskResource {
     private BigDecimal taskExecuteId;
     private TaskCallBack callBack;
     /**
-     * spring
+     * 子任务执行器，由任务中心的线程分配策略决定
      */
-    private ThreadPoolTaskExecutor threadPoolTaskExecutor =null;
+    private AsyncListenableTaskExecutor threadPoolTaskExecutor =null;
+    /**
+     * 分配子任务执行器的线程分配策略，单线程执行的任务为空
+     */
+    private TaskExecutorStrategy executorStrategy=null;
+    private TaskType taskType;
     private Logger logger=null;
 
-    public TaskResource(BigDecimal taskExecuteId, ThreadPoolTaskExecutor threadPoolExecutor, Class loggerClass) {
+    /**
+     * @param taskExecuteId    执行编号
+     * @param executorStrategy 线程分配策略，单线程执行的任务传null
+     * @param taskType         任务类别
+     * @param loggerClass      日志所属的类
+     */
+    public TaskResource(BigDecimal taskExecuteId, TaskExecutorStrategy executorStrategy, TaskType taskType, Class loggerClass) {
         this.taskExecuteId = taskExecuteId;
-        this.threadPoolTaskExecutor = threadPoolExecutor;
+        this.executorStrategy = executorStrategy;
+        this.taskType = taskType;
+        this.threadPoolTaskExecutor = null==executorStrategy?null:executorStrategy.getSubTaskExecutor(taskType);
         this.logger = LoggerFactory.getLogger(loggerClass);
     }
 
@@ -44,15 +57,52 @@ public class TaskResource {
         return this.logger;
     }
 
+    /**
+     * 子任务执行器的常规并发数，由线程分配策略给出（线程池为核心线程数，信号量执行器为并发上限）
+     * @param
+     * @return int
+     * @author JQY
+     * @date 2026/10/17
+     */
     public int getCorePoolSize(){
-        return this.threadPoolTaskExecutor.getCorePoolSize();
+        return this.executorStrategy.getSubTaskConcurrencyLimit(this.taskType);
     }
 
     public int getActiveCount(){
-        return this.threadPoolTaskExecutor.getActiveCount();
+        return this.executorStrategy.getSubTaskActiveCount(this.taskType);
     }
 
     public ListenableFuture submitListenable(Callable subTask) throws Exception{
         return this.threadPoolTaskExecutor.submitListenable(subTask);
     }
+
+    /**
+     * 新建一组子任务
+     * <p>
+     * 组内子任务共用本任务的子任务线程池，可通过{@link SubTaskGroup#awaitAll}只等待本组子任务结束。
+     *
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.SubTaskGroup<V>
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public <V> SubTaskGroup<V> newSubTaskGroup(){
+        return new SubTaskGroup<>(this.threadPoolTaskExecutor,this.logger);
+    }
+
+    /**
+     * 新建一组按键限流的子任务
+     * <p>
+     * 通过{@link SubTaskGroup#submit(String, Callable)}提交的子任务，同一键同时执行的不超过maxPerKey个，
+     * 全组同时执行的不超过maxTotal个，有空位时在各键之间轮转。
+     *
+     * @param maxPerKey 每个键的并发上限
+     * @param maxTotal 全组的并发上限
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.SubTaskGroup<V>
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public <V> SubTaskGroup<V> newSubTaskGroup(int maxPerKey,int maxTotal){
+        return new SubTaskGroup<>(this.threadPoolTaskExecutor,this.logger,
+                new KeyedTaskScheduler(this.threadPoolTaskExecutor,maxPerKey,maxTotal,this.logger));
+    }
 }
@@ -18,17 +18,26 @@ public enum TaskType {
      * SDS：SDS任务。
      * MDS：MDS任务。
      */
-    FTP(Short.valueOf("1")),SDS(Short.valueOf("2")),MDS(Short.valueOf("3"));
+    FTP(Short.valueOf("1"),1),SDS(Short.valueOf("2"),2),MDS(Short.valueOf("3"),3);
     private Short value;
+    /**
+     * 默认优先级，数值越大越优先。下游任务离产出更近，默认优先于上游任务。
+     */
+    private int defaultPriority;
 
-    TaskType(Short num) {
+    TaskType(Short num,int defaultPriority) {
         this.value = num;
+        this.defaultPriority = defaultPriority;
     }
 
     public Short toValue() {
         return value;
     }
 
+    public int getDefaultPriority() {
+        return defaultPriority;
+    }
+
     public static TaskType getTaskType(Short num){
         switch (num){
             case 1:{
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 线程池策略：主任务和所有任务的子任务各共用一个线程池
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.ThreadPoolExecutorStrategy
+ * @author: JQY
+ * @create: 2026-10-17 11:10 Via IntelliJ IDEA
+ **/
+public class ThreadPoolExecutorStrategy implements TaskExecutorStrategy {
+    /**
+     * 核心线程池
+     */
+    private ThreadPoolTaskExecutor mainThreadPool = null;
+    /**
+     * 所有任务的子任务共用一个线程池。
+     */
+    private ThreadPoolTaskExecutor subTaskThreadPool = null;
+
+    public ThreadPoolExecutorStrategy() {
+        //此处可修改为读取配置文件中的线程池设置
+        ThreadFactory mainThreadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("TaskCenter-主任务线程-%d").build();
+        this.mainThreadPool = new ThreadPoolTaskExecutor();
+        this.mainThreadPool.setCorePoolSize(0);
+        this.mainThreadPool.setMaxPoolSize(Integer.MAX_VALUE);
+        this.mainThreadPool.setKeepAliveSeconds(10);
+        this.mainThreadPool.setQueueCapacity(-1);
+        this.mainThreadPool.setThreadFactory(mainThreadFactory);
+        this.mainThreadPool.initialize();
+        ThreadFactory subTaskThreadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("TaskCenter-子任务线程-%d").build();
+        this.subTaskThreadPool = new ThreadPoolTaskExecutor();
+        this.subTaskThreadPool.setCorePoolSize(5);
+        this.subTaskThreadPool.setMaxPoolSize(20);
+        this.subTaskThreadPool.setKeepAliveSeconds(5);
+        this.subTaskThreadPool.setQueueCapacity(10);
+        this.subTaskThreadPool.setThreadFactory(subTaskThreadFactory);
+        this.subTaskThreadPool.initialize();
+    }
+
+    public ThreadPoolExecutorStrategy(ThreadPoolTaskExecutor mainThreadPool, ThreadPoolTaskExecutor subTaskThreadPool) {
+        this.mainThreadPool = mainThreadPool;
+        this.subTaskThreadPool = subTaskThreadPool;
+    }
+
+    @Override
+    public AsyncListenableTaskExecutor getMainExecutor() {
+        return this.mainThreadPool;
+    }
+
+    @Override
+    public AsyncListenableTaskExecutor getSubTaskExecutor(TaskType taskType) {
+        return this.subTaskThreadPool;
+    }
+
+    @Override
+    public int getSubTaskConcurrencyLimit(TaskType taskType) {
+        return this.subTaskThreadPool.getCorePoolSize();
+    }
+
+    @Override
+    public int getSubTaskActiveCount(TaskType taskType) {
+        return this.subTaskThreadPool.getActiveCount();
+    }
+
+    @Override
+    public void shutdown() {
+        this.mainThreadPool.shutdown();
+        this.subTaskThreadPool.shutdown();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程策略：每个主任务、子任务各占一个虚拟线程（JDK 21及以上）
+ * <p>
+ * 子任务的并发数由每个任务类别各自的信号量限制，而不是由线程池大小限制，
+ * 适合以阻塞式网络I/O为主的子任务（如FTP下载）。
+ * <p>
+ * 运行在JDK 21以下时退化为按需创建平台线程，并发上限仍然有效。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.VirtualThreadExecutorStrategy
+ * @author: JQY
+ * @create: 2026-10-17 11:40 Via IntelliJ IDEA
+ **/
+public class VirtualThreadExecutorStrategy implements TaskExecutorStrategy {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadExecutorStrategy.class);
+
+    /**
+     * 未单独设置时每类任务的子任务并发上限
+     */
+    public static final int DEFAULT_CONCURRENCY_LIMIT = 200;
+
+    private final ExecutorService mainExecutorService;
+
+    private final ExecutorService subTaskExecutorService;
+
+    private final AsyncListenableTaskExecutor mainExecutor;
+
+    private final Map<TaskType, SemaphoreBoundedTaskExecutor> subTaskExecutorMap = new EnumMap<>(TaskType.class);
+
+    public VirtualThreadExecutorStrategy() {
+        this(null, DEFAULT_CONCURRENCY_LIMIT);
+    }
+
+    /**
+     * @param concurrencyLimitMap     各类任务的子任务并发上限，可空
+     * @param defaultConcurrencyLimit 未在concurrencyLimitMap中设置的任务类别所使用的并发上限
+     */
+    public VirtualThreadExecutorStrategy(Map<TaskType, Integer> concurrencyLimitMap, int defaultConcurrencyLimit) {
+        this.mainExecutorService = newThreadPerTaskExecutor("TaskCenter-主任务线程-");
+        this.subTaskExecutorService = newThreadPerTaskExecutor("TaskCenter-子任务线程-");
+        this.mainExecutor = new TaskExecutorAdapter(this.mainExecutorService);
+        for (TaskType taskType : TaskType.values()) {
+            Integer concurrencyLimit = null == concurrencyLimitMap ? null : concurrencyLimitMap.get(taskType);
+            this.subTaskExecutorMap.put(taskType, new SemaphoreBoundedTaskExecutor(this.subTaskExecutorService,
+                    null == concurrencyLimit ? defaultConcurrencyLimit : concurrencyLimit));
+        }
+    }
+
+    @Override
+    public AsyncListenableTaskExecutor getMainExecutor() {
+        return this.mainExecutor;
+    }
+
+    @Override
+    public AsyncListenableTaskExecutor getSubTaskExecutor(TaskType taskType) {
+        return this.subTaskExecutorMap.get(taskType);
+    }
+
+    @Override
+    public int getSubTaskConcurrencyLimit(TaskType taskType) {
+        return this.subTaskExecutorMap.get(taskType).getConcurrencyLimit();
+    }
+
+    @Override
+    public int getSubTaskActiveCount(TaskType taskType) {
+        return this.subTaskExecutorMap.get(taskType).getActiveCount();
+    }
+
+    @Override
+    public void shutdown() {
+        this.mainExecutorService.shutdown();
+        this.subTaskExecutorService.shutdown();
+    }
+
+    /**
+     * 创建“一任务一线程”的执行器
+     * <p>
+     * 通过反射调用JDK 21的虚拟线程API，以便在较低版本的JDK上也能编译运行。
+     *
+     * @param namePrefix 线程名前缀
+     * @return java.util.concurrent.ExecutorService
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+        } catch (ReflectiveOperationException e) {
+            logger.warn("\r\n当前JDK不支持虚拟线程，改为按需创建平台线程。\r\n");
+            return Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                    .setNameFormat(namePrefix + "%d").build());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+import java.io.File;
+import java.math.BigDecimal;
+
+/**
+ * FTP层已获取并登记的文件，供下游（如SDS层）直接使用
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.DownloadedFile
+ * @author: JQY
+ * @create: 2026-10-17 17:10 Via IntelliJ IDEA
+ **/
+public class DownloadedFile {
+
+    private final BigDecimal taskExecuteId;
+
+    private final BigDecimal ftpTaskId;
+
+    /**
+     * 本地文件
+     */
+    private final File file;
+
+    /**
+     * 文件哈希值
+     */
+    private final String hashValue;
+
+    /**
+     * 文件大小（字节）
+     */
+    private final long size;
+
+    /**
+     * 落盘大小（字节），压缩存储时小于文件大小，读取时应使用{@link FtpStorageCodec#open(File)}
+     */
+    private final long storedSize;
+
+    /**
+     * FTP获取记录编号，写入时未回填主键则为空（批处理插入是否回填取决于驱动），下游不应依赖此值
+     */
+    private final BigDecimal ftpRecordId;
+
+    /**
+     * 从开始下载到登记完成的耗时（毫秒）
+     */
+    private final long elapsedMillis;
+
+    public DownloadedFile(BigDecimal taskExecuteId, BigDecimal ftpTaskId, File file, String hashValue, long size, BigDecimal ftpRecordId, long elapsedMillis) {
+        this(taskExecuteId, ftpTaskId, file, hashValue, size, size, ftpRecordId, elapsedMillis);
+    }
+
+    public DownloadedFile(BigDecimal taskExecuteId, BigDecimal ftpTaskId, File file, String hashValue, long size, long storedSize, BigDecimal ftpRecordId, long elapsedMillis) {
+        this.taskExecuteId = taskExecuteId;
+        this.ftpTaskId = ftpTaskId;
+        this.file = file;
+        this.hashValue = hashValue;
+        this.size = size;
+        this.storedSize = storedSize;
+        this.ftpRecordId = ftpRecordId;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public BigDecimal getTaskExecuteId() {
+        return taskExecuteId;
+    }
+
+    public BigDecimal getFtpTaskId() {
+        return ftpTaskId;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public String getHashValue() {
+        return hashValue;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getStoredSize() {
+        return storedSize;
+    }
+
+    /**
+     * FTP获取记录编号
+     * @param
+     * @return java.math.BigDecimal 可能为空，需要时请按哈希值查询获取记录
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public BigDecimal getFtpRecordId() {
+        return ftpRecordId;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "DownloadedFile{" +
+                "taskExecuteId=" + taskExecuteId +
+                ", ftpTaskId=" + ftpTaskId +
+                ", file=" + file +
+                ", hashValue='" + hashValue + '\'' +
+                ", size=" + size +
+                ", storedSize=" + storedSize +
+                ", ftpRecordId=" + ftpRecordId +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单台FTP主机的下载带宽令牌桶
+ * <p>
+ * 令牌以每秒bytesPerSecond个的速度补充，桶容量为一秒的量。取令牌时先记账（余额可为负），再按欠额休眠，
+ * 同一主机的多个会话共享一个桶，合计速度不超过上限。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpBandwidthLimiter
+ * @author: JQY
+ * @create: 2026-10-17 00:20 Via IntelliJ IDEA
+ **/
+public class FtpBandwidthLimiter {
+
+    private final long bytesPerSecond;
+
+    private double tokens;
+
+    private long lastRefillNanos = System.nanoTime();
+
+    public FtpBandwidthLimiter(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.tokens = bytesPerSecond;
+    }
+
+    /**
+     * 取得传输指定字节数的令牌，不足时等待
+     * @param bytes 字节数
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void acquire(int bytes) throws InterruptedIOException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            this.tokens = Math.min(this.bytesPerSecond, this.tokens + (now - this.lastRefillNanos) * this.bytesPerSecond / 1e9);
+            this.lastRefillNanos = now;
+            this.tokens -= bytes;
+            waitNanos = this.tokens < 0 ? (long) (-this.tokens * 1e9 / this.bytesPerSecond) : 0L;
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("等待下载带宽时被中断。");
+            }
+        }
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+import net.gmcc.dg.acr.modules.reward.basedata.dao.entity.dborm.FtpTaskDO;
+import net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskResource;
+import net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskResult;
+import net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskType;
+import net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.ThreadPoolExecutorStrategy;
+import org.apache.ftpserver.ConnectionConfigFactory;
+import org.apache.ftpserver.FtpServer;
+import org.apache.ftpserver.FtpServerFactory;
+import org.apache.ftpserver.ftplet.Authority;
+import org.apache.ftpserver.ftplet.FtpStatistics;
+import org.apache.ftpserver.ftplet.UserManager;
+import org.apache.ftpserver.impl.DefaultFtpServer;
+import org.apache.ftpserver.listener.ListenerFactory;
+import org.apache.ftpserver.usermanager.PropertiesUserManagerFactory;
+import org.apache.ftpserver.usermanager.impl.BaseUser;
+import org.apache.ftpserver.usermanager.impl.ConcurrentLoginPermission;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FTP层的本地压测
+ * <p>
+ * 在本进程内启动一个Apache MINA FtpServer，生成指定数量、大小的随机文件，平均分给若干个FTP子任务，
+ * 再经{@link FtpTask#startWork(TaskResource, List)}以独立的执行资源端到端执行一遍（不改动FtpTask单例上由任务中心设置的执行资源），报告文件数/秒、MB/秒、服务器收到的连接与登录数，
+ * 以及单个文件耗时的平均值与P99，便于在普通Linux机器上对比连接池、并行度、摘要等改动的效果。
+ * <p>
+ * 仅在启用ftp-benchmark配置（spring.profiles.active=ftp-benchmark）时注册。每次压测都会按basedata.ftp.realPath等配置落盘并写入FTP获取记录，
+ * 请使用测试库与测试目录；压测期间不要同时执行正式的FTP任务。
+ * <p>
+ * 依赖org.apache.ftpserver:ftpserver-core（Apache MINA FtpServer），项目的正式依赖中没有声明，
+ * 启用压测的环境须自行加入该依赖，否则本类无法编译。
+ * <p>
+ * 相关配置：
+ * basedata.ftp.benchmark.port 本地FTP服务器端口，默认2121；
+ * basedata.ftp.benchmark.fileCount 文件数，默认200；
+ * basedata.ftp.benchmark.fileSizeBytes 单个文件大小（字节），默认1048576；
+ * basedata.ftp.benchmark.subTaskCount FTP子任务数，默认4。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpBenchmark
+ * @author: JQY
+ * @create: 2026-10-17 00:50 Via IntelliJ IDEA
+ **/
+@Component
+@Profile("ftp-benchmark")
+public class FtpBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(FtpBenchmark.class);
+
+    private static final String HOST = "127.0.0.1";
+
+    private static final String USER_NAME = "benchmark";
+
+    private static final String PASSWORD = "benchmark";
+
+    /**
+     * 等待下游收齐文件的最长时间（分钟）
+     */
+    private static final long AWAIT_MINUTES = 30L;
+
+    @Autowired
+    private FtpTask ftpTask;
+
+    @Autowired
+    private FtpFileStage ftpFileStage;
+
+    @Value("${basedata.ftp.partitionSymbol}")
+    private String partitionSymbol;
+
+    @Value("${basedata.ftp.benchmark.port:2121}")
+    private int port;
+
+    @Value("${basedata.ftp.benchmark.fileCount:200}")
+    private int fileCount;
+
+    @Value("${basedata.ftp.benchmark.fileSizeBytes:1048576}")
+    private long fileSizeBytes;
+
+    @Value("${basedata.ftp.benchmark.subTaskCount:4}")
+    private int subTaskCount;
+
+    /**
+     * 按配置执行一次压测
+     * @param
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpBenchmark.Report
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public Report run() throws Exception {
+        return this.run(this.fileCount, this.fileSizeBytes, this.subTaskCount);
+    }
+
+    /**
+     * 执行一次压测
+     *
+     * @param fileCount     文件数
+     * @param fileSizeBytes 单个文件大小（字节）
+     * @param subTaskCount  FTP子任务数
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpBenchmark.Report
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public Report run(int fileCount, long fileSizeBytes, int subTaskCount) throws Exception {
+        Path homeDirectory = Files.createTempDirectory("ftp-benchmark-");
+        List<FtpTaskDO> subTaskList = this.generateFiles(homeDirectory, fileCount, fileSizeBytes, Math.max(1, subTaskCount));
+        FtpServer ftpServer = this.startServer(homeDirectory);
+        ThreadPoolExecutorStrategy executorStrategy = new ThreadPoolExecutorStrategy();
+        //负数执行编号，与正式执行区分
+        final BigDecimal taskExecuteId = BigDecimal.valueOf(-System.currentTimeMillis());
+        final List<Long> elapsedList = Collections.synchronizedList(new ArrayList<Long>());
+        final long[] totalBytes = new long[1];
+        final CountDownLatch completed = new CountDownLatch(1);
+        FtpFileStage.Subscription subscription = this.ftpFileStage.subscribe(new FtpFileConsumer() {
+            @Override
+            public void onFile(DownloadedFile downloadedFile) {
+                if (taskExecuteId.equals(downloadedFile.getTaskExecuteId())) {
+                    elapsedList.add(downloadedFile.getElapsedMillis());
+                    synchronized (totalBytes) {
+                        totalBytes[0] += downloadedFile.getSize();
+                    }
+                }
+            }
+
+            @Override
+            public void onExecutionComplete(BigDecimal completedExecuteId) {
+                if (taskExecuteId.equals(completedExecuteId)) {
+                    completed.countDown();
+                }
+            }
+        }, Math.max(16, fileCount));
+        try {
+            TaskResource taskResource = new TaskResource(taskExecuteId, executorStrategy, TaskType.FTP, FtpBenchmark.class);
+            final long startNanos = System.nanoTime();
+            TaskResult taskResult = this.ftpTask.startWork(taskResource, subTaskList);
+            if (!completed.await(AWAIT_MINUTES, TimeUnit.MINUTES)) {
+                logger.warn("\r\n压测【" + taskExecuteId + "】等待下游收齐文件超时。\r\n");
+            }
+            long elapsedNanos = System.nanoTime() - startNanos;
+            FtpStatistics ftpStatistics = ((DefaultFtpServer) ftpServer).getServerContext().getFtpStatistics();
+            List<Long> sortedElapsed;
+            synchronized (elapsedList) {
+                sortedElapsed = new ArrayList<>(elapsedList);
+            }
+            Collections.sort(sortedElapsed);
+            long bytes;
+            synchronized (totalBytes) {
+                bytes = totalBytes[0];
+            }
+            Report report = new Report(taskResult, fileCount, sortedElapsed, bytes, elapsedNanos,
+                    ftpStatistics.getTotalConnectionNumber(), ftpStatistics.getTotalLoginNumber());
+            logger.info("\r\nFTP压测结果：" + report + "\r\n");
+            return report;
+        } finally {
+            subscription.cancel();
+            executorStrategy.shutdown();
+            ftpServer.stop();
+            this.deleteRecursively(homeDirectory.toFile());
+        }
+    }
+
+    private List<FtpTaskDO> generateFiles(Path homeDirectory, int fileCount, long fileSizeBytes, int subTaskCount) throws IOException {
+        List<StringBuilder> fileLists = new ArrayList<>(subTaskCount);
+        for (int i = 0; i < subTaskCount; i++) {
+            Files.createDirectories(homeDirectory.resolve("sub" + i));
+            fileLists.add(new StringBuilder());
+        }
+        //每次压测内容都不同，不会被去重或变更检测跳过
+        Random random = new Random();
+        byte[] buffer = new byte[64 * 1024];
+        for (int i = 0; i < fileCount; i++) {
+            String fileName = "file" + i + ".dat";
+            try (OutputStream out = Files.newOutputStream(homeDirectory.resolve("sub" + (i % subTaskCount)).resolve(fileName))) {
+                for (long written = 0; written < fileSizeBytes; written += buffer.length) {
+                    random.nextBytes(buffer);
+                    out.write(buffer, 0, (int) Math.min(buffer.length, fileSizeBytes - written));
+                }
+            }
+            StringBuilder fileList = fileLists.get(i % subTaskCount);
+            if (fileList.length() > 0) {
+                fileList.append(this.partitionSymbol);
+            }
+            fileList.append(fileName);
+        }
+        List<FtpTaskDO> subTaskList = new ArrayList<>(subTaskCount);
+        for (int i = 0; i < subTaskCount; i++) {
+            FtpTaskDO subTask = new FtpTaskDO();
+            subTask.setId(BigDecimal.valueOf(-1L - i));
+            subTask.setFtpIp(HOST);
+            subTask.setFtpPort(String.valueOf(this.port));
+            subTask.setFtpUsername(USER_NAME);
+            subTask.setFtpPassword(PASSWORD);
+            subTask.setSavePath("/sub" + i + "/");
+            subTask.setTargetFileList(fileLists.get(i).toString());
+            subTaskList.add(subTask);
+        }
+        return subTaskList;
+    }
+
+    private FtpServer startServer(Path homeDirectory) throws Exception {
+        FtpServerFactory serverFactory = new FtpServerFactory();
+        ListenerFactory listenerFactory = new ListenerFactory();
+        listenerFactory.setServerAddress(HOST);
+        listenerFactory.setPort(this.port);
+        serverFactory.addListener("default", listenerFactory.createListener());
+        ConnectionConfigFactory connectionConfigFactory = new ConnectionConfigFactory();
+        connectionConfigFactory.setMaxLogins(Integer.MAX_VALUE);
+        serverFactory.setConnectionConfig(connectionConfigFactory.createConnectionConfig());
+        UserManager userManager = new PropertiesUserManagerFactory().createUserManager();
+        BaseUser user = new BaseUser();
+        user.setName(USER_NAME);
+        user.setPassword(PASSWORD);
+        user.setHomeDirectory(homeDirectory.toString());
+        List<Authority> authorities = new ArrayList<>();
+        //0表示不限制同时登录数
+        authorities.add(new ConcurrentLoginPermission(0, 0));
+        user.setAuthorities(authorities);
+        userManager.save(user);
+        serverFactory.setUserManager(userManager);
+        FtpServer ftpServer = serverFactory.createServer();
+        ftpServer.start();
+        return ftpServer;
+    }
+
+    private void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (null != children) {
+            for (File child : children) {
+                this.deleteRecursively(child);
+            }
+        }
+        if (!file.delete()) {
+            logger.info("\r\n压测文件【" + file + "】删除失败，请手工删除。\r\n");
+        }
+    }
+
+    /**
+     * 一次压测的结果
+     */
+    public static class Report {
+
+        private final TaskResult taskResult;
+
+        private final int fileCount;
+
+        private final int downloadedCount;
+
+        private final long totalBytes;
+
+        private final long elapsedMillis;
+
+        private final double filesPerSecond;
+
+        private final double megabytesPerSecond;
+
+        private final int connectionCount;
+
+        private final int loginCount;
+
+        private final double averageFileMillis;
+
+        private final long p99FileMillis;
+
+        private Report(TaskResult taskResult, int fileCount, List<Long> sortedElapsed, long totalBytes, long elapsedNanos,
+                       int connectionCount, int loginCount) {
+            this.taskResult = taskResult;
+            this.fileCount = fileCount;
+            this.downloadedCount = sortedElapsed.size();
+            this.totalBytes = totalBytes;
+            this.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+            double seconds = Math.max(elapsedNanos, 1L) / 1e9;
+            this.filesPerSecond = this.downloadedCount / seconds;
+            this.megabytesPerSecond = totalBytes / 1048576.0 / seconds;
+            this.connectionCount = connectionCount;
+            this.loginCount = loginCount;
+            long sum = 0;
+            for (Long elapsed : sortedElapsed) {
+                sum += elapsed;
+            }
+            this.averageFileMillis = sortedElapsed.isEmpty() ? 0 : (double) sum / sortedElapsed.size();
+            this.p99FileMillis = sortedElapsed.isEmpty() ? 0
+                    : sortedElapsed.get(Math.max(0, (int) Math.ceil(sortedElapsed.size() * 0.99) - 1));
+        }
+
+        public TaskResult getTaskResult() {
+            return taskResult;
+        }
+
+        public int getDownloadedCount() {
+            return downloadedCount;
+        }
+
+        public double getFilesPerSecond() {
+            return filesPerSecond;
+        }
+
+        public double getMegabytesPerSecond() {
+            return megabytesPerSecond;
+        }
+
+        public int getConnectionCount() {
+            return connectionCount;
+        }
+
+        public long getP99FileMillis() {
+            return p99FileMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "Report{" +
+                    "taskResult=" + taskResult +
+                    ", fileCount=" + fileCount +
+                    ", downloadedCount=" + downloadedCount +
+                    ", totalBytes=" + totalBytes +
+                    ", elapsedMillis=" + elapsedMillis +
+                    ", filesPerSecond=" + String.format("%.2f", filesPerSecond) +
+                    ", megabytesPerSecond=" + String.format("%.2f", megabytesPerSecond) +
+                    ", connectionCount=" + connectionCount +
+                    ", loginCount=" + loginCount +
+                    ", averageFileMillis=" + String.format("%.1f", averageFileMillis) +
+                    ", p99FileMillis=" + p99FileMillis +
+                    '}';
+        }
+    }
+}
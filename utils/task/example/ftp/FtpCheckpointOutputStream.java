@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+
+/**
+ * 边写边记录断点的输出流
+ * <p>
+ * 统计已写入下层流的字节数，每写入一定字节数或经过一定时间，把当前位置作为断点保存一次，
+ * 进程被强行终止时也能从最近的断点继续下载，而不只是在捕获到IOException时才记录。
+ * 应直接包在文件输出流外、缓冲流之内，记录的位置才不会超过已写入文件的内容。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpCheckpointOutputStream
+ * @author: JQY
+ * @create: 2026-10-17 15:20 Via IntelliJ IDEA
+ **/
+public class FtpCheckpointOutputStream extends FilterOutputStream {
+
+    private final FtpTransferCheckpointStore checkpointStore;
+
+    private final BigDecimal ftpTaskId;
+
+    /**
+     * 断点的其余信息，保存时只替换偏移量
+     */
+    private final FtpTransferCheckpoint checkpoint;
+
+    private final long intervalBytes;
+
+    private final long intervalNanos;
+
+    private long offset;
+
+    private long lastSavedOffset;
+
+    private long lastSavedNanos;
+
+    /**
+     * @param out             文件输出流
+     * @param checkpointStore 断点存储
+     * @param ftpTaskId       FTP子任务编号
+     * @param checkpoint      起始断点，偏移量为已写入文件的字节数
+     * @param intervalBytes   保存断点的字节间隔
+     * @param intervalNanos   保存断点的时间间隔（纳秒）
+     */
+    public FtpCheckpointOutputStream(OutputStream out, FtpTransferCheckpointStore checkpointStore, BigDecimal ftpTaskId,
+                                     FtpTransferCheckpoint checkpoint, long intervalBytes, long intervalNanos) {
+        super(out);
+        this.checkpointStore = checkpointStore;
+        this.ftpTaskId = ftpTaskId;
+        this.checkpoint = checkpoint;
+        this.intervalBytes = intervalBytes;
+        this.intervalNanos = intervalNanos;
+        this.offset = checkpoint.getOffset();
+        this.lastSavedOffset = this.offset;
+        this.lastSavedNanos = System.nanoTime();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        this.out.write(b);
+        this.offset++;
+        this.saveIfDue();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        this.out.write(b, off, len);
+        this.offset += len;
+        this.saveIfDue();
+    }
+
+    private void saveIfDue() {
+        if (this.offset - this.lastSavedOffset < this.intervalBytes
+                && System.nanoTime() - this.lastSavedNanos < this.intervalNanos) {
+            return;
+        }
+        this.checkpointStore.put(this.ftpTaskId, new FtpTransferCheckpoint(this.checkpoint.getRemotePath(),
+                this.checkpoint.getSaveName(), this.checkpoint.getRemoteFileInfo(), this.offset));
+        this.lastSavedOffset = this.offset;
+        this.lastSavedNanos = System.nanoTime();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+import net.gmcc.dg.common.utils.FileDigestUtil;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 哈希值的记录格式
+ * <p>
+ * 边下载边计算的摘要为小写十六进制，而已有记录由{@link FileDigestUtil#getFileDigest}生成，两者必须一致才能查重。
+ * 每种摘要算法首次使用时，以下载完成的文件与{@link FileDigestUtil}的结果对照一次：
+ * 一致则直接使用；仅大小写不同则转换大小写；其它差异则此后一律改回调用{@link FileDigestUtil}（需要再读一遍文件）。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpDigestFormat
+ * @author: JQY
+ * @create: 2026-10-17 14:10 Via IntelliJ IDEA
+ **/
+public final class FtpDigestFormat {
+
+    private enum Format {
+        /**
+         * 小写十六进制
+         */
+        LOWER_HEX,
+        /**
+         * 大写十六进制
+         */
+        UPPER_HEX,
+        /**
+         * 与十六进制不兼容，调用FileDigestUtil
+         */
+        LEGACY
+    }
+
+    private static final ConcurrentMap<String, Format> FORMAT_MAP = new ConcurrentHashMap<>();
+
+    private FtpDigestFormat() {
+    }
+
+    /**
+     * 把边下载边计算的摘要转换为记录格式
+     *
+     * @param digestAlgorithm 摘要算法
+     * @param lowerHex        小写十六进制的摘要
+     * @param file            已下载的文件
+     * @param logger          日志
+     * @return java.lang.String 记录格式的哈希值，对照时FileDigestUtil计算失败则返回null
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public static String format(String digestAlgorithm, String lowerHex, File file, Logger logger) {
+        Format format = FORMAT_MAP.get(digestAlgorithm);
+        if (null == format) {
+            String expected = FileDigestUtil.getFileDigest(digestAlgorithm, file, logger);
+            if (null == expected) {
+                //无法对照，按原有方式视为计算失败，下一个文件再对照
+                return null;
+            }
+            if (expected.equals(lowerHex)) {
+                format = Format.LOWER_HEX;
+            } else if (expected.equals(lowerHex.toUpperCase())) {
+                format = Format.UPPER_HEX;
+            } else {
+                format = Format.LEGACY;
+            }
+            if (null == FORMAT_MAP.putIfAbsent(digestAlgorithm, format)) {
+                logger.info("\r\n" + digestAlgorithm + "哈希值的记录格式为【" + format + "】，对照文件【" + file + "】：【" + expected + "】/【" + lowerHex + "】。\r\n");
+            }
+            return expected;
+        }
+        switch (format) {
+            case LOWER_HEX:
+                return lowerHex;
+            case UPPER_HEX:
+                return lowerHex.toUpperCase();
+            default:
+                return FileDigestUtil.getFileDigest(digestAlgorithm, file, logger);
+        }
+    }
+
+    /**
+     * 把探测得到的摘要转换为记录格式
+     * <p>
+     * 探测不落盘，无法调用FileDigestUtil，记录格式尚未确定或与十六进制不兼容时返回null，即不以探测结果查重。
+     *
+     * @param digestAlgorithm 摘要算法
+     * @param lowerHex        小写十六进制的摘要
+     * @return java.lang.String
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public static String formatProbed(String digestAlgorithm, String lowerHex) {
+        Format format = FORMAT_MAP.get(digestAlgorithm);
+        if (Format.LOWER_HEX == format) {
+            return lowerHex;
+        }
+        if (Format.UPPER_HEX == format) {
+            return lowerHex.toUpperCase();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+import java.math.BigDecimal;
+
+/**
+ * FTP层文件的下游消费者（如SDS层的解析）
+ * <p>
+ * 通过{@link FtpFileStage#subscribe(FtpFileConsumer, int)}订阅后，每个新获取的文件登记完成即回调，
+ * 不必等待整个FTP任务结束。回调在订阅专属的线程上顺序执行。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpFileConsumer
+ * @author: JQY
+ * @create: 2026-10-17 17:15 Via IntelliJ IDEA
+ **/
+public interface FtpFileConsumer {
+
+    /**
+     * 处理一个新获取的文件
+     * @param downloadedFile 已获取并登记的文件
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    void onFile(DownloadedFile downloadedFile) throws Exception;
+
+    /**
+     * 某次FTP任务的所有文件均已发布
+     * @param taskExecuteId 执行编号
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    void onExecutionComplete(BigDecimal taskExecuteId) throws Exception;
+}
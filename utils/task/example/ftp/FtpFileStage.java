@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * FTP层的文件发布点
+ * <p>
+ * FTP子任务每登记完一个新文件就发布给所有订阅者，下游可以在其余文件仍在下载时开始处理。
+ * 每个订阅者各有一个有界队列，队列满时发布者等待，以此限制内存占用。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpFileStage
+ * @author: JQY
+ * @create: 2026-10-17 17:20 Via IntelliJ IDEA
+ **/
+@Component
+public class FtpFileStage {
+
+    private static final Logger logger = LoggerFactory.getLogger(FtpFileStage.class);
+
+    private final List<Subscription> subscriptionList = new CopyOnWriteArrayList<>();
+
+    /**
+     * 订阅
+     *
+     * @param consumer 消费者
+     * @param capacity 队列容量
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpFileStage.Subscription 可用于取消订阅
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public Subscription subscribe(FtpFileConsumer consumer, int capacity) {
+        Subscription subscription = new Subscription(consumer, capacity);
+        this.subscriptionList.add(subscription);
+        subscription.start();
+        return subscription;
+    }
+
+    /**
+     * 发布一个新文件
+     *
+     * @param downloadedFile 已获取并登记的文件
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void publish(DownloadedFile downloadedFile) throws InterruptedException {
+        for (Subscription subscription : this.subscriptionList) {
+            subscription.offer(downloadedFile);
+        }
+    }
+
+    /**
+     * 通知某次FTP任务的所有文件均已发布
+     *
+     * @param taskExecuteId 执行编号
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void complete(BigDecimal taskExecuteId) throws InterruptedException {
+        for (Subscription subscription : this.subscriptionList) {
+            subscription.offer(taskExecuteId);
+        }
+    }
+
+    /**
+     * 一个订阅：有界队列加一个专属的消费线程
+     */
+    public class Subscription implements Runnable {
+
+        private final FtpFileConsumer consumer;
+
+        /**
+         * 元素为DownloadedFile（新文件）或BigDecimal（执行编号，表示该次任务结束）
+         */
+        private final BlockingQueue<Object> queue;
+
+        private final Thread consumerThread;
+
+        private volatile boolean active = true;
+
+        private Subscription(FtpFileConsumer consumer, int capacity) {
+            this.consumer = consumer;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.consumerThread = new Thread(this, "FtpFileStage-" + consumer.getClass().getSimpleName());
+            this.consumerThread.setDaemon(true);
+        }
+
+        private void start() {
+            this.consumerThread.start();
+        }
+
+        private void offer(Object item) throws InterruptedException {
+            if (this.active) {
+                this.queue.put(item);
+            }
+        }
+
+        /**
+         * 取消订阅，队列中尚未处理的文件将被丢弃
+         * @param
+         * @return void
+         * @author JQY
+         * @date 2026/10/17
+         */
+        public void cancel() {
+            this.active = false;
+            subscriptionList.remove(this);
+            this.queue.clear();
+            this.consumerThread.interrupt();
+        }
+
+        @Override
+        public void run() {
+            while (this.active) {
+                Object item;
+                try {
+                    item = this.queue.take();
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                try {
+                    if (item instanceof DownloadedFile) {
+                        this.consumer.onFile((DownloadedFile) item);
+                    } else {
+                        this.consumer.onExecutionComplete((BigDecimal) item);
+                    }
+                } catch (Exception e) {
+                    logger.error("\r\n下游消费者【" + this.consumer.getClass().getName() + "】处理【" + item + "】失败。\r\n", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import net.gmcc.dg.acr.modules.reward.basedata.dao.FtpRecordDOMapper;
+import net.gmcc.dg.common.utils.SpringUtils;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已登记文件哈希值的进程内索引
+ * <p>
+ * 启动时在后台线程通过{@link FtpRecordDOMapper#scanHashValues}加载全部哈希值到布隆过滤器：
+ * 判定“一定不存在”的哈希值无需查询数据库，其余情况仍以数据库为准。
+ * 加载完成前不作判定；加载失败时按退避间隔重试，直到成功。
+ * <p>
+ * 布隆过滤器只增不减，获取记录被删除后仍判为“可能存在”，只会多查一次数据库。
+ * <p>
+ * 相关配置：
+ * basedata.ftp.hashIndex.expectedInsertions 预计的哈希值个数，默认1000000，超出后误判率上升；
+ * basedata.ftp.hashIndex.falsePositiveRate 布隆过滤器的误判率，默认0.01。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpHashIndex
+ * @author: JQY
+ * @create: 2026-10-17 22:50 Via IntelliJ IDEA
+ **/
+@Component
+public class FtpHashIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(FtpHashIndex.class);
+
+    /**
+     * 加载失败后首次重试的间隔（毫秒），此后每次翻倍
+     */
+    private static final long INITIAL_RETRY_MILLIS = 30 * 1000L;
+
+    /**
+     * 加载失败后重试间隔的上限（毫秒）
+     */
+    private static final long MAX_RETRY_MILLIS = 30 * 60 * 1000L;
+
+    @Value("${basedata.ftp.hashIndex.expectedInsertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${basedata.ftp.hashIndex.falsePositiveRate:0.01}")
+    private double falsePositiveRate;
+
+    private BloomFilter<CharSequence> bloomFilter;
+
+    /**
+     * 布隆过滤器是否已加载完成
+     */
+    private volatile boolean ready = false;
+
+    @PostConstruct
+    public void start() {
+        this.bloomFilter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), this.expectedInsertions, this.falsePositiveRate);
+        Thread loader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loadUntilReady();
+            }
+        }, "FtpHashIndex-加载线程");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * 哈希值是否一定没有获取记录，为true时无需查询数据库
+     * @param hashValue 哈希值
+     * @return boolean 加载完成前总是返回false
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public boolean isDefinitelyNew(String hashValue) {
+        return this.ready && !this.bloomFilter.mightContain(hashValue);
+    }
+
+    /**
+     * 记下已有获取记录的哈希值（新登记或经数据库确认）
+     * @param hashValue 哈希值
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void add(String hashValue) {
+        this.bloomFilter.put(hashValue);
+    }
+
+    /**
+     * 加载全部哈希值，失败时按退避间隔重试，直到成功
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private void loadUntilReady() {
+        long retryMillis = INITIAL_RETRY_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                this.load();
+                return;
+            } catch (Exception e) {
+                logger.error("\r\n第【" + attempt + "】次加载FTP文件哈希值失败，加载成功前去重将始终查询数据库，【" + retryMillis + "】毫秒后重试。\r\n", e);
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(retryMillis);
+            } catch (InterruptedException e) {
+                logger.error("\r\nFTP文件哈希值的加载线程被中断，去重将始终查询数据库。\r\n", e);
+                Thread.currentThread().interrupt();
+                return;
+            }
+            retryMillis = Math.min(retryMillis * 2, MAX_RETRY_MILLIS);
+        }
+    }
+
+    private void load() {
+        final long startMillis = System.currentTimeMillis();
+        final long[] count = {0L};
+        //失败重试时重复放入的哈希值不影响判定
+        SpringUtils.getBean(FtpRecordDOMapper.class).scanHashValues(new ResultHandler<String>() {
+            @Override
+            public void handleResult(ResultContext<? extends String> resultContext) {
+                String hashValue = resultContext.getResultObject();
+                if (null != hashValue) {
+                    bloomFilter.put(hashValue);
+                    count[0]++;
+                }
+            }
+        });
+        this.ready = true;
+        logger.info("\r\n已加载【" + count[0] + "】个FTP文件哈希值，耗时【" + (System.currentTimeMillis() - startMillis) + "】毫秒。\r\n");
+        if (count[0] > this.expectedInsertions) {
+            logger.warn("\r\n已登记的哈希值个数【" + count[0] + "】超过预计的【" + this.expectedInsertions
+                    + "】个，布隆过滤器误判率将上升，请调大basedata.ftp.hashIndex.expectedInsertions。\r\n");
+        }
+    }
+}
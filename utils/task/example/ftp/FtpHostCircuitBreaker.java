@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 单台FTP主机的熔断器
+ * <p>
+ * 连续建立连接失败达到阈值后打开（OPEN），此后在冷却时间内直接拒绝该主机的连接请求，不再占用线程等待连接超时；
+ * 冷却结束后进入半开（HALF_OPEN），只放行一次试探，成功则关闭（CLOSED），失败则重新打开。
+ * <p>
+ * 记录进入各状态的次数，以及成功、失败、被拒绝的连接请求数。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpHostCircuitBreaker
+ * @author: JQY
+ * @create: 2026-10-17 21:45 Via IntelliJ IDEA
+ **/
+public class FtpHostCircuitBreaker {
+
+    public enum State {
+        /**
+         * 正常放行
+         */
+        CLOSED,
+        /**
+         * 直接拒绝
+         */
+        OPEN,
+        /**
+         * 放行一次试探
+         */
+        HALF_OPEN
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(FtpHostCircuitBreaker.class);
+
+    private final String hostKey;
+
+    private final int failureThreshold;
+
+    private final long openMillis;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private volatile long openedAtMillis;
+
+    /**
+     * 进入各状态的次数，按State的序数存放
+     */
+    private final AtomicLongArray transitionCounts = new AtomicLongArray(State.values().length);
+
+    private final AtomicLong successCount = new AtomicLong();
+
+    private final AtomicLong failureCount = new AtomicLong();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public FtpHostCircuitBreaker(String hostKey, int failureThreshold, long openMillis) {
+        this.hostKey = hostKey;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = Math.max(0L, openMillis);
+    }
+
+    /**
+     * 打开状态且仍在冷却时间内
+     * @param
+     * @return boolean
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public boolean isRejecting() {
+        return State.OPEN == this.state.get() && System.currentTimeMillis() - this.openedAtMillis < this.openMillis;
+    }
+
+    /**
+     * 是否放行一次连接请求，不放行时计入被拒绝数
+     * @param
+     * @return boolean
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public boolean allowRequest() {
+        State current = this.state.get();
+        if (State.CLOSED == current) {
+            return true;
+        }
+        if (State.OPEN == current && System.currentTimeMillis() - this.openedAtMillis >= this.openMillis
+                && this.transition(State.OPEN, State.HALF_OPEN)) {
+            //冷却结束，由本次请求试探
+            return true;
+        }
+        this.rejectedCount.incrementAndGet();
+        return false;
+    }
+
+    public void onSuccess() {
+        this.successCount.incrementAndGet();
+        this.consecutiveFailures.set(0);
+        if (!this.transition(State.HALF_OPEN, State.CLOSED)) {
+            this.transition(State.OPEN, State.CLOSED);
+        }
+    }
+
+    public void onFailure() {
+        this.failureCount.incrementAndGet();
+        int failures = this.consecutiveFailures.incrementAndGet();
+        if (State.HALF_OPEN == this.state.get()) {
+            this.openedAtMillis = System.currentTimeMillis();
+            this.transition(State.HALF_OPEN, State.OPEN);
+        } else if (failures >= this.failureThreshold) {
+            this.openedAtMillis = System.currentTimeMillis();
+            this.transition(State.CLOSED, State.OPEN);
+        }
+    }
+
+    private boolean transition(State from, State to) {
+        if (!this.state.compareAndSet(from, to)) {
+            return false;
+        }
+        this.transitionCounts.incrementAndGet(to.ordinal());
+        if (State.OPEN == to) {
+            logger.warn("\r\nFTP主机【" + this.hostKey + "】连续【" + this.consecutiveFailures.get() + "】次连接失败，熔断器打开，【"
+                    + this.openMillis + "】毫秒内拒绝该主机的连接请求。\r\n");
+        } else {
+            logger.info("\r\nFTP主机【" + this.hostKey + "】的熔断器由【" + from + "】转为【" + to + "】。\r\n");
+        }
+        return true;
+    }
+
+    public String getHostKey() {
+        return hostKey;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public long getTransitionCount(State to) {
+        return transitionCounts.get(to.ordinal());
+    }
+
+    public long getSuccessCount() {
+        return successCount.get();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "FtpHostCircuitBreaker{" +
+                "hostKey='" + hostKey + '\'' +
+                ", state=" + state.get() +
+                ", consecutiveFailures=" + consecutiveFailures.get() +
+                ", opened=" + getTransitionCount(State.OPEN) +
+                ", halfOpened=" + getTransitionCount(State.HALF_OPEN) +
+                ", closed=" + getTransitionCount(State.CLOSED) +
+                ", success=" + successCount.get() +
+                ", failure=" + failureCount.get() +
+                ", rejected=" + rejectedCount.get() +
+                '}';
+    }
+}
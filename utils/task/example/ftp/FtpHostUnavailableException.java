@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+import java.io.IOException;
+
+/**
+ * FTP主机的熔断器处于打开状态，请求被直接拒绝
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpHostUnavailableException
+ * @author: JQY
+ * @create: 2026-10-17 21:40 Via IntelliJ IDEA
+ **/
+public class FtpHostUnavailableException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public FtpHostUnavailableException(String message) {
+        super(message);
+    }
+}
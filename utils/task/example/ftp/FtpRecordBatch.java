@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+import net.gmcc.dg.acr.modules.reward.basedata.dao.FtpRecordDOMapper;
+import net.gmcc.dg.acr.modules.reward.basedata.dao.entity.dborm.FtpRecordDO;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FTP获取记录的批量登记
+ * <p>
+ * 一个FTP子任务下载的文件先在此累积，达到批大小、最早一个文件已等待超过最长延迟或子任务结束时统一登记：
+ * 先以一条IN查询找出已有获取记录的哈希值（每1000个一组），再以MyBatis批处理插入新的获取记录，
+ * 最后把新文件发布给下游。最长延迟（basedata.ftp.record.maxDelayMillis，默认2000毫秒）由后台线程保证，
+ * 即使下一个文件迟迟下载不完，已下载的新文件也会及时交给下游解析；不大于0时每个文件立即登记。重复文件的日志与删除和逐个登记时一致。
+ * 新文件在登记前由{@link FtpStagingArea}移入正式目录，重复文件直接在暂存目录删除。
+ * <p>
+ * 查询前先问{@link FtpHashIndex}：一定不存在的哈希值无需查询数据库，只有可能存在的才进入IN查询。
+ * IN查询失败时退回逐个getByHashValue；批量插入失败或插入行数不符时整批回滚并改为逐条插入，
+ * 逐条插入失败的文件从正式目录撤回（{@link FtpStagingArea#withdraw}），不影响同批其它文件的登记与发布。
+ * 批处理插入是否回填主键取决于驱动，因此发布给下游的{@link DownloadedFile#getFtpRecordId()}可能为空。
+ * <p>
+ * 线程安全，同一子任务的多个下载线程共用一个实例。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpRecordBatch
+ * @author: JQY
+ * @create: 2026-10-17 22:20 Via IntelliJ IDEA
+ **/
+public class FtpRecordBatch {
+
+    private static final Logger logger = LoggerFactory.getLogger(FtpRecordBatch.class);
+
+    /**
+     * 单条IN查询最多携带的哈希值个数
+     */
+    private static final int IN_LIST_LIMIT = 1000;
+
+    /**
+     * 到达最长延迟时登记未满一批的文件，所有实例共用
+     */
+    private static final ScheduledExecutorService DELAYED_FLUSHER = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("FtpRecordBatch-延迟登记线程-%d").setDaemon(true).build());
+
+    private final FtpRecordDOMapper ftpRecordDAO;
+
+    private final FtpHashIndex hashIndex;
+
+    private final FtpStagingArea stagingArea;
+
+    /**
+     * 用于批处理插入，未配置MyBatis时为空，逐条插入
+     */
+    private final SqlSessionFactory sqlSessionFactory;
+
+    private final int batchSize;
+
+    private final long maxDelayMillis;
+
+    private final FtpFileStage ftpFileStage;
+
+    private final BigDecimal taskExecuteId;
+
+    private final String logPrefix;
+
+    private final List<Pending> pendingList = new ArrayList<>();
+
+    /**
+     * 登记过程互斥，{@link #flush()}返回时不会有仍在进行的延迟登记
+     */
+    private final Object writeLock = new Object();
+
+    /**
+     * 是否已安排延迟登记，由pendingList保护
+     */
+    private boolean flushScheduled = false;
+
+    /**
+     * @param runtimeConfig 运行配置，提供DAO、索引、暂存区与批大小
+     * @param ftpFileStage  新文件发布点，可空
+     * @param taskExecuteId 当前任务执行编号
+     * @param logPrefix     日志前缀
+     */
+    public FtpRecordBatch(FtpRuntimeConfig runtimeConfig, FtpFileStage ftpFileStage, BigDecimal taskExecuteId, String logPrefix) {
+        this.ftpRecordDAO = runtimeConfig.getFtpRecordDAO();
+        this.hashIndex = runtimeConfig.getHashIndex();
+        this.stagingArea = runtimeConfig.getStagingArea();
+        this.batchSize = Math.max(1, runtimeConfig.getRecordBatchSize());
+        this.maxDelayMillis = runtimeConfig.getRecordMaxDelayMillis();
+        this.ftpFileStage = ftpFileStage;
+        this.taskExecuteId = taskExecuteId;
+        this.logPrefix = logPrefix;
+        this.sqlSessionFactory = runtimeConfig.getSqlSessionFactory();
+    }
+
+    /**
+     * 加入一个已下载的文件，累积到批大小时立即登记
+     *
+     * @param saveRecord    待插入的获取记录，哈希值已填好
+     * @param savedFile     本地文件
+     * @param currentFile   远程文件名，用于日志
+     * @param elapsedMillis 下载耗时
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void add(FtpRecordDO saveRecord, File savedFile, String currentFile, long elapsedMillis) {
+        List<Pending> fullBatch = null;
+        boolean scheduleFlush = false;
+        synchronized (this.pendingList) {
+            this.pendingList.add(new Pending(saveRecord, savedFile, currentFile, elapsedMillis));
+            if (this.pendingList.size() >= this.batchSize) {
+                fullBatch = new ArrayList<>(this.pendingList);
+                this.pendingList.clear();
+            } else if (!this.flushScheduled) {
+                this.flushScheduled = true;
+                scheduleFlush = true;
+            }
+        }
+        if (null != fullBatch) {
+            this.write(fullBatch);
+        } else if (scheduleFlush) {
+            this.scheduleFlush();
+        }
+    }
+
+    /**
+     * 安排一次延迟登记，到时登记所有尚未登记的文件
+     * @param
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private void scheduleFlush() {
+        Runnable delayedFlush = new Runnable() {
+            @Override
+            public void run() {
+                synchronized (pendingList) {
+                    flushScheduled = false;
+                }
+                try {
+                    flush();
+                } catch (RuntimeException e) {
+                    logger.error(logPrefix + "延迟登记FTP获取记录失败。\r\n", e);
+                }
+            }
+        };
+        if (this.maxDelayMillis <= 0) {
+            delayedFlush.run();
+            return;
+        }
+        DELAYED_FLUSHER.schedule(delayedFlush, this.maxDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 登记所有尚未登记的文件，并等待正在进行的登记结束
+     * @param
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void flush() {
+        synchronized (this.writeLock) {
+            List<Pending> batch;
+            synchronized (this.pendingList) {
+                if (this.pendingList.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<>(this.pendingList);
+                this.pendingList.clear();
+            }
+            this.write(batch);
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        synchronized (this.writeLock) {
+            this.writeLocked(batch);
+        }
+    }
+
+    private void writeLocked(List<Pending> batch) {
+        //先由索引排除一定未登记的哈希值，其余查询数据库
+        boolean[] definitelyNew = new boolean[batch.size()];
+        List<String> uncertainList = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            String hashValue = batch.get(i).saveRecord.getFileHash();
+            definitelyNew[i] = this.hashIndex.isDefinitelyNew(hashValue);
+            if (!definitelyNew[i]) {
+                uncertainList.add(hashValue);
+            }
+        }
+        Set<String> existingHashes = this.findExistingHashes(uncertainList);
+        //同一批内哈希值相同的文件只保留第一个
+        Set<String> seenHashes = new HashSet<>();
+        List<Pending> freshList = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            String hashValue = pending.saveRecord.getFileHash();
+            boolean duplicated;
+            if (definitelyNew[i]) {
+                duplicated = false;
+            } else {
+                duplicated = null != existingHashes
+                        ? existingHashes.contains(hashValue)
+                        : null != this.ftpRecordDAO.getByHashValue(hashValue);
+                if (duplicated) {
+                    this.hashIndex.add(hashValue);
+                }
+            }
+            if (duplicated || !seenHashes.add(hashValue)) {
+                logger.info(this.logPrefix + "文件【" + pending.currentFile + "】（哈希值【" + hashValue + "】）未被修改，不予更新。\r\n");
+                this.stagingArea.discard(pending.savedFile, this.logPrefix);
+            } else {
+                try {
+                    //先移入正式目录再登记，获取记录不会指向不存在的文件
+                    pending.rawSize = pending.savedFile.length();
+                    pending.savedFile = this.stagingArea.publish(pending.savedFile, this.taskExecuteId, hashValue);
+                    freshList.add(pending);
+                } catch (IOException e) {
+                    logger.error(this.logPrefix + "文件【" + pending.currentFile + "】移入正式目录失败，不予登记。\r\n", e);
+                    this.stagingArea.discard(pending.savedFile, this.logPrefix);
+                }
+            }
+        }
+        if (freshList.isEmpty()) {
+            return;
+        }
+        List<Pending> recordedList = this.insert(freshList);
+        for (Pending pending : recordedList) {
+            this.hashIndex.add(pending.saveRecord.getFileHash());
+        }
+        if (null != this.ftpFileStage) {
+            try {
+                for (Pending pending : recordedList) {
+                    this.ftpFileStage.publish(new DownloadedFile(this.taskExecuteId, pending.saveRecord.getFtpTaskId(), pending.savedFile,
+                            pending.saveRecord.getFileHash(), pending.rawSize, pending.savedFile.length(), pending.saveRecord.getId(), pending.elapsedMillis));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error(this.logPrefix + "发布新文件时被中断，其余文件已登记但未发布。\r\n");
+            }
+        }
+    }
+
+    /**
+     * 以IN查询（{@link FtpRecordDOMapper#listHashValuesIn(List)}）找出已有获取记录的哈希值
+     * @param hashList 待查的哈希值
+     * @return java.util.Set<java.lang.String> 查询失败或只有一个哈希值时返回null
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private Set<String> findExistingHashes(List<String> hashList) {
+        if (hashList.size() <= 1) {
+            return null;
+        }
+        Set<String> existingHashes = new HashSet<>();
+        try {
+            for (int from = 0; from < hashList.size(); from += IN_LIST_LIMIT) {
+                List<String> chunk = hashList.subList(from, Math.min(from + IN_LIST_LIMIT, hashList.size()));
+                existingHashes.addAll(this.ftpRecordDAO.listHashValuesIn(new ArrayList<>(chunk)));
+            }
+            return existingHashes;
+        } catch (RuntimeException e) {
+            logger.warn(this.logPrefix + "按哈希值批量查询FTP获取记录失败，改为逐个查询。\r\n", e);
+            return null;
+        }
+    }
+
+    /**
+     * 插入新文件的获取记录
+     * <p>
+     * 优先批处理插入；退回逐条插入时，插入失败的文件从正式目录撤回并记录日志，其余文件照常登记。
+     * @param freshList 已移入正式目录的新文件
+     * @return java.util.List<Pending> 已成功登记的文件
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private List<Pending> insert(List<Pending> freshList) {
+        if (null != this.sqlSessionFactory && freshList.size() > 1) {
+            try (SqlSession sqlSession = this.sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+                FtpRecordDOMapper batchMapper = sqlSession.getMapper(FtpRecordDOMapper.class);
+                for (Pending pending : freshList) {
+                    batchMapper.insertSelective(pending.saveRecord);
+                }
+                int inserted = countInserted(sqlSession.flushStatements());
+                if (inserted == freshList.size()) {
+                    sqlSession.commit();
+                    return freshList;
+                }
+                sqlSession.rollback();
+                logger.error(this.logPrefix + "批量插入【" + freshList.size() + "】条FTP记录，实际插入【" + inserted + "】条，已回滚并改为逐条插入。\r\n");
+            } catch (Exception e) {
+                logger.error(this.logPrefix + "批量插入【" + freshList.size() + "】条FTP记录失败，改为逐条插入。\r\n", e);
+            }
+        }
+        List<Pending> recordedList = new ArrayList<>(freshList.size());
+        for (Pending pending : freshList) {
+            try {
+                int daoResult = this.ftpRecordDAO.insertSelective(pending.saveRecord);
+                if (1 == daoResult) {
+                    recordedList.add(pending);
+                    continue;
+                }
+                logger.error(this.logPrefix + "文件【" + pending.currentFile + "】的FTP记录插入异常，更新了【" + daoResult + "】条记录，已从正式目录撤回。\r\n");
+            } catch (RuntimeException e) {
+                logger.error(this.logPrefix + "文件【" + pending.currentFile + "】的FTP记录插入失败，已从正式目录撤回。\r\n", e);
+            }
+            this.stagingArea.withdraw(pending.savedFile, this.taskExecuteId, this.logPrefix);
+        }
+        return recordedList;
+    }
+
+    /**
+     * 统计批处理插入的行数
+     * <p>
+     * 驱动对批处理语句只返回{@link Statement#SUCCESS_NO_INFO}时按插入1条计；返回{@link Statement#EXECUTE_FAILED}或其它值时不计。
+     * @param batchResults flushStatements的结果
+     * @return int
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private static int countInserted(List<BatchResult> batchResults) {
+        int inserted = 0;
+        for (BatchResult batchResult : batchResults) {
+            for (int updateCount : batchResult.getUpdateCounts()) {
+                if (1 == updateCount || Statement.SUCCESS_NO_INFO == updateCount) {
+                    inserted++;
+                }
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * 已下载、待登记的文件
+     */
+    private static class Pending {
+
+        private final FtpRecordDO saveRecord;
+
+        /**
+         * 登记前为暂存文件，移入正式目录后为正式文件
+         */
+        private File savedFile;
+
+        private final String currentFile;
+
+        private final long elapsedMillis;
+
+        /**
+         * 原文件大小，移入正式目录前取得
+         */
+        private long rawSize;
+
+        private Pending(FtpRecordDO saveRecord, File savedFile, String currentFile, long elapsedMillis) {
+            this.saveRecord = saveRecord;
+            this.savedFile = savedFile;
+            this.currentFile = currentFile;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 远程文件变更检测缓存
+ * <p>
+ * 以“主机:端口/远程路径”为键，记录上次获取时远程文件的大小、修改时间以及内容哈希值（即FtpRecordDO中的哈希值）。
+ * 大小与修改时间均未变化的文件可直接跳过，无需传输任何字节。
+ * <p>
+ * 配置basedata.ftp.remoteCacheFile后，缓存会持久化到该文件，重启后仍然有效。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpRemoteFileCache
+ * @author: JQY
+ * @create: 2026-10-17 19:10 Via IntelliJ IDEA
+ **/
+@Component
+public class FtpRemoteFileCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(FtpRemoteFileCache.class);
+
+    private static final String VALUE_SEPARATOR = ",";
+
+    private final Map<String, Entry> entryMap = new ConcurrentHashMap<>();
+
+    @Value("${basedata.ftp.remoteCacheFile:}")
+    private String cacheFile;
+
+    /**
+     * 从持久化文件加载缓存
+     * @param
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    @PostConstruct
+    public void load() {
+        if (null == this.cacheFile || "".equals(this.cacheFile.trim()) || !new File(this.cacheFile).isFile()) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(new File(this.cacheFile).toPath())) {
+            properties.load(in);
+        } catch (IOException e) {
+            logger.warn("\r\n读取FTP远程文件缓存【" + this.cacheFile + "】失败，将重新积累。\r\n", e);
+            return;
+        }
+        for (String key : properties.stringPropertyNames()) {
+            String[] values = properties.getProperty(key).split(VALUE_SEPARATOR);
+            if (3 == values.length) {
+                try {
+                    this.entryMap.put(key, new Entry(new RemoteFileInfo(Long.parseLong(values[0]), Long.parseLong(values[1])), values[2]));
+                } catch (NumberFormatException e) {
+                    logger.warn("\r\nFTP远程文件缓存中【" + key + "】的内容无效，已忽略。\r\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * 保存到持久化文件（先写临时文件再替换）
+     * @param
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public synchronized void save() {
+        if (null == this.cacheFile || "".equals(this.cacheFile.trim())) {
+            return;
+        }
+        Properties properties = new Properties();
+        for (Map.Entry<String, Entry> entry : this.entryMap.entrySet()) {
+            RemoteFileInfo info = entry.getValue().getRemoteFileInfo();
+            properties.setProperty(entry.getKey(), info.getSize() + VALUE_SEPARATOR + info.getModifiedTime() + VALUE_SEPARATOR + entry.getValue().getHashValue());
+        }
+        Path target = new File(this.cacheFile).toPath();
+        Path temp = new File(this.cacheFile + ".tmp").toPath();
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, "FTP remote file cache");
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("\r\n保存FTP远程文件缓存【" + this.cacheFile + "】失败。\r\n", e);
+        }
+    }
+
+    /**
+     * 获取缓存项
+     * @param hostName 主机
+     * @param port 端口
+     * @param remotePath 远程文件路径
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpRemoteFileCache.Entry 未缓存时返回null
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public Entry get(String hostName, int port, String remotePath) {
+        return this.entryMap.get(keyOf(hostName, port, remotePath));
+    }
+
+    /**
+     * 记录远程文件当前的元数据与内容哈希值
+     * @param hostName 主机
+     * @param port 端口
+     * @param remotePath 远程文件路径
+     * @param remoteFileInfo 下载前取得的元数据
+     * @param hashValue 内容哈希值
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void put(String hostName, int port, String remotePath, RemoteFileInfo remoteFileInfo, String hashValue) {
+        this.entryMap.put(keyOf(hostName, port, remotePath), new Entry(remoteFileInfo, hashValue));
+    }
+
+    private static String keyOf(String hostName, int port, String remotePath) {
+        return hostName + ":" + port + "/" + remotePath;
+    }
+
+    /**
+     * 缓存项
+     */
+    public static class Entry {
+        private final RemoteFileInfo remoteFileInfo;
+
+        private final String hashValue;
+
+        Entry(RemoteFileInfo remoteFileInfo, String hashValue) {
+            this.remoteFileInfo = remoteFileInfo;
+            this.hashValue = hashValue;
+        }
+
+        public RemoteFileInfo getRemoteFileInfo() {
+            return remoteFileInfo;
+        }
+
+        public String getHashValue() {
+            return hashValue;
+        }
+    }
+}
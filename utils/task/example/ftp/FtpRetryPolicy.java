@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 带抖动的指数退避重试策略
+ * <p>
+ * 第n次重试前等待min(最大间隔, 基础间隔*2^(n-1))的一半到全部之间的随机时长，
+ * 避免多个子任务在同一时刻一齐重连同一台主机。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpRetryPolicy
+ * @author: JQY
+ * @create: 2026-10-17 21:40 Via IntelliJ IDEA
+ **/
+public class FtpRetryPolicy {
+
+    /**
+     * 最多尝试次数（含第一次）
+     */
+    private final int maxAttempts;
+
+    private final long baseDelayMillis;
+
+    private final long maxDelayMillis;
+
+    public FtpRetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = Math.max(0L, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * 第retry次重试前应等待的时长
+     * @param retry 重试序号，从1开始
+     * @return long 毫秒
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public long backoffMillis(int retry) {
+        long delay = this.baseDelayMillis << Math.min(Math.max(retry - 1, 0), 20);
+        delay = Math.min(delay, this.maxDelayMillis);
+        if (delay <= 1L) {
+            return delay;
+        }
+        return ThreadLocalRandom.current().nextLong(delay / 2, delay + 1);
+    }
+
+    /**
+     * 在第retry次重试前等待
+     * @param retry 重试序号，从1开始
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void sleepBeforeRetry(int retry) throws InterruptedException {
+        long delay = this.backoffMillis(retry);
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FtpRetryPolicy{" +
+                "maxAttempts=" + maxAttempts +
+                ", baseDelayMillis=" + baseDelayMillis +
+                ", maxDelayMillis=" + maxDelayMillis +
+                '}';
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+import net.gmcc.dg.acr.modules.reward.basedata.dao.FtpRecordDOMapper;
+import net.gmcc.dg.common.utils.SpringUtils;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * FTP子任务执行者共用的运行配置
+ * <p>
+ * 一次性取得所需的spring bean并读取、解析全部basedata.*配置，构建后不再变化；
+ * FtpTask每次执行只构建一个，由本次执行的全部{@link FtpTaskExecuter}共用，不必每个子任务都重复查找bean、读取配置。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpRuntimeConfig
+ * @author: JQY
+ * @create: 2026-10-17 02:10 Via IntelliJ IDEA
+ **/
+public final class FtpRuntimeConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(FtpRuntimeConfig.class);
+
+    private final FtpRecordDOMapper ftpRecordDAO;
+
+    private final FtpSessionPool ftpSessionPool;
+
+    private final FtpRemoteFileCache remoteFileCache;
+
+    private final FtpHashIndex hashIndex;
+
+    private final FtpTransferCheckpointStore checkpointStore;
+
+    private final FtpStagingArea stagingArea;
+
+    private final DataSourceTransactionManager transactionManager;
+
+    /**
+     * 用于批量登记，未配置时为空
+     */
+    private final SqlSessionFactory sqlSessionFactory;
+
+    /**
+     * 目标文件列表的分割符，按字面匹配
+     */
+    private final String partitionSymbol;
+
+    private final String digestAlgorithm;
+
+    private final int filesParallelism;
+
+    private final long segmentThresholdBytes;
+
+    private final int segmentCount;
+
+    /**
+     * 探测模式的FTP子任务编号，已规范化为不带多余零的字符串
+     */
+    private final Set<String> probeTaskIds;
+
+    private final int recordBatchSize;
+
+    private final long recordMaxDelayMillis;
+
+    private FtpRuntimeConfig(Environment springEnv) {
+        this.ftpRecordDAO = SpringUtils.getBean(FtpRecordDOMapper.class);
+        this.ftpSessionPool = SpringUtils.getBean(FtpSessionPool.class);
+        this.remoteFileCache = SpringUtils.getBean(FtpRemoteFileCache.class);
+        this.hashIndex = SpringUtils.getBean(FtpHashIndex.class);
+        this.checkpointStore = SpringUtils.getBean(FtpTransferCheckpointStore.class);
+        this.stagingArea = SpringUtils.getBean(FtpStagingArea.class);
+        this.transactionManager = SpringUtils.getBean(DataSourceTransactionManager.class);
+        this.partitionSymbol = springEnv.getProperty("basedata.ftp.partitionSymbol");
+        this.digestAlgorithm = springEnv.getProperty("basedata.digestAlgorithm");
+        this.filesParallelism = springEnv.getProperty("basedata.ftp.filesParallelism", Integer.class, 1);
+        this.segmentThresholdBytes = springEnv.getProperty("basedata.ftp.segmentThresholdBytes", Long.class, 0L);
+        this.segmentCount = springEnv.getProperty("basedata.ftp.segmentCount", Integer.class, 4);
+        this.probeTaskIds = parseProbeTaskIds(springEnv.getProperty("basedata.ftp.probeTaskIds", ""));
+        this.recordBatchSize = springEnv.getProperty("basedata.ftp.record.batchSize", Integer.class, 100);
+        this.recordMaxDelayMillis = springEnv.getProperty("basedata.ftp.record.maxDelayMillis", Long.class, 2000L);
+        SqlSessionFactory factory = null;
+        if (this.recordBatchSize > 1) {
+            try {
+                factory = SpringUtils.getBean(SqlSessionFactory.class);
+            } catch (Exception e) {
+                logger.warn("\r\n未找到SqlSessionFactory，FTP获取记录将逐条插入。\r\n", e);
+            }
+        }
+        this.sqlSessionFactory = factory;
+    }
+
+    /**
+     * 按当前的spring配置构建
+     * @param
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpRuntimeConfig
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public static FtpRuntimeConfig load() {
+        return new FtpRuntimeConfig(SpringUtils.getBean(StandardEnvironment.class));
+    }
+
+    /**
+     * 按分割符（字面匹配，不作正则解释）拆分目标文件列表，忽略空白项
+     * @param targetFileList 目标文件列表
+     * @return java.util.List<java.lang.String>
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public List<String> splitTargetFiles(String targetFileList) {
+        List<String> fileList = new ArrayList<>();
+        if (null == targetFileList || "".equals(targetFileList)) {
+            return fileList;
+        }
+        if (null == this.partitionSymbol || "".equals(this.partitionSymbol) || !targetFileList.contains(this.partitionSymbol)) {
+            fileList.add(targetFileList);
+            return fileList;
+        }
+        int from = 0;
+        while (from <= targetFileList.length()) {
+            int to = targetFileList.indexOf(this.partitionSymbol, from);
+            if (to < 0) {
+                to = targetFileList.length();
+            }
+            String fileName = targetFileList.substring(from, to);
+            if (!"".equals(fileName.trim())) {
+                fileList.add(fileName);
+            }
+            from = to + this.partitionSymbol.length();
+        }
+        return fileList;
+    }
+
+    /**
+     * 子任务是否配置为探测模式
+     * @param ftpTaskId FTP子任务编号
+     * @return boolean
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public boolean isProbeTask(BigDecimal ftpTaskId) {
+        return null != ftpTaskId && this.probeTaskIds.contains(normalize(ftpTaskId));
+    }
+
+    private static Set<String> parseProbeTaskIds(String probeTaskIds) {
+        Set<String> idSet = new HashSet<>();
+        if (null == probeTaskIds) {
+            return idSet;
+        }
+        int from = 0;
+        while (from <= probeTaskIds.length()) {
+            int to = probeTaskIds.indexOf(',', from);
+            if (to < 0) {
+                to = probeTaskIds.length();
+            }
+            String probeTaskId = probeTaskIds.substring(from, to).trim();
+            if (!"".equals(probeTaskId)) {
+                try {
+                    idSet.add(normalize(new BigDecimal(probeTaskId)));
+                } catch (NumberFormatException e) {
+                    logger.warn("\r\nbasedata.ftp.probeTaskIds中的【" + probeTaskId + "】不是有效的FTP子任务编号，已忽略。\r\n");
+                }
+            }
+            from = to + 1;
+        }
+        return Collections.unmodifiableSet(idSet);
+    }
+
+    private static String normalize(BigDecimal id) {
+        return 0 == id.signum() ? "0" : id.stripTrailingZeros().toPlainString();
+    }
+
+    public FtpRecordDOMapper getFtpRecordDAO() {
+        return ftpRecordDAO;
+    }
+
+    public FtpSessionPool getFtpSessionPool() {
+        return ftpSessionPool;
+    }
+
+    public FtpRemoteFileCache getRemoteFileCache() {
+        return remoteFileCache;
+    }
+
+    public FtpHashIndex getHashIndex() {
+        return hashIndex;
+    }
+
+    public FtpTransferCheckpointStore getCheckpointStore() {
+        return checkpointStore;
+    }
+
+    public FtpStagingArea getStagingArea() {
+        return stagingArea;
+    }
+
+    public DataSourceTransactionManager getTransactionManager() {
+        return transactionManager;
+    }
+
+    public SqlSessionFactory getSqlSessionFactory() {
+        return sqlSessionFactory;
+    }
+
+    public String getPartitionSymbol() {
+        return partitionSymbol;
+    }
+
+    public String getDigestAlgorithm() {
+        return digestAlgorithm;
+    }
+
+    public int getFilesParallelism() {
+        return filesParallelism;
+    }
+
+    public long getSegmentThresholdBytes() {
+        return segmentThresholdBytes;
+    }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    public int getRecordBatchSize() {
+        return recordBatchSize;
+    }
+
+    public long getRecordMaxDelayMillis() {
+        return recordMaxDelayMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "FtpRuntimeConfig{" +
+                "partitionSymbol='" + partitionSymbol + '\'' +
+                ", digestAlgorithm='" + digestAlgorithm + '\'' +
+                ", filesParallelism=" + filesParallelism +
+                ", segmentThresholdBytes=" + segmentThresholdBytes +
+                ", segmentCount=" + segmentCount +
+                ", probeTaskIds=" + probeTaskIds +
+                ", recordBatchSize=" + recordBatchSize +
+                ", recordMaxDelayMillis=" + recordMaxDelayMillis +
+                '}';
+    }
+}
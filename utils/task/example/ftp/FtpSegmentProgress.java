@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 分段下载中一段的写入进度
+ * <p>
+ * 下载线程每写入一块就更新进度并唤醒等待的线程，计算摘要的线程无需轮询；下载结束（无论成败）时调用{@link #finish()}。
+ * 同一时刻只允许一个线程等待。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpSegmentProgress
+ * @author: JQY
+ * @create: 2026-10-17 23:40 Via IntelliJ IDEA
+ **/
+public class FtpSegmentProgress {
+
+    /**
+     * 已写入本地文件的字节数（相对段的起始偏移量）
+     */
+    private volatile long written = 0L;
+
+    private volatile boolean finished = false;
+
+    private volatile Thread waiter;
+
+    public long getWritten() {
+        return this.written;
+    }
+
+    public boolean isFinished() {
+        return this.finished;
+    }
+
+    /**
+     * 更新进度
+     * @param written 已写入的字节数
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void advance(long written) {
+        this.written = written;
+        this.signal();
+    }
+
+    /**
+     * 标记本段下载已结束（成功或失败）
+     * @param
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void finish() {
+        this.finished = true;
+        this.signal();
+    }
+
+    /**
+     * 等待进度超过指定位置，或本段下载结束
+     * @param position 已处理到的位置
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void awaitBeyond(long position) throws InterruptedException {
+        this.waiter = Thread.currentThread();
+        try {
+            while (this.written <= position && !this.finished) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            this.waiter = null;
+        }
+    }
+
+    private void signal() {
+        Thread thread = this.waiter;
+        if (null != thread) {
+            LockSupport.unpark(thread);
+        }
+    }
+}
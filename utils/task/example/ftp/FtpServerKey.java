@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+import java.util.Objects;
+
+/**
+ * FTP会话的复用条件：主机、端口、用户名、账户均相同的会话可以互相替代
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpServerKey
+ * @author: JQY
+ * @create: 2026-10-17 20:02 Via IntelliJ IDEA
+ **/
+public class FtpServerKey {
+
+    private final String hostName;
+
+    private final int port;
+
+    private final String userName;
+
+    private final String account;
+
+    public FtpServerKey(String hostName, int port, String userName, String account) {
+        this.hostName = hostName;
+        this.port = port;
+        this.userName = userName;
+        this.account = account;
+    }
+
+    public String getHostName() {
+        return hostName;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    /**
+     * 主机标识（主机:端口），用于按主机限制连接数
+     * @param
+     * @return java.lang.String
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public String getHostKey() {
+        return hostName + ":" + port;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        FtpServerKey that = (FtpServerKey) o;
+        return port == that.port &&
+                Objects.equals(hostName, that.hostName) &&
+                Objects.equals(userName, that.userName) &&
+                Objects.equals(account, that.account);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hostName, port, userName, account);
+    }
+
+    @Override
+    public String toString() {
+        return userName + "@" + hostName + ":" + port;
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+import org.apache.commons.net.ftp.FTP;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.commons.net.ftp.FTPReply;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.TimeZone;
+
+/**
+ * 一个已登录的FTP会话
+ * <p>
+ * 与FtpHelper相比，以流的方式交付下载内容，便于边下载边计算摘要，而不必把文件写完后再读一遍。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpSession
+ * @author: JQY
+ * @create: 2026-10-17 18:05 Via IntelliJ IDEA
+ **/
+public class FtpSession {
+
+    private static final String MDTM_PATTERN = "yyyyMMddHHmmss";
+
+    private static final int RANGE_BUFFER_SIZE = 64 * 1024;
+
+    private final FTPClient ftpClient;
+
+    private final FtpServerKey serverKey;
+
+    /**
+     * 最近一次归还连接池的时间
+     */
+    private volatile long lastUsedMillis = System.currentTimeMillis();
+
+    /**
+     * 所在主机的带宽令牌桶，不限速时为空
+     */
+    private volatile FtpBandwidthLimiter bandwidthLimiter;
+
+    private FtpSession(FTPClient ftpClient, FtpServerKey serverKey) {
+        this.ftpClient = ftpClient;
+        this.serverKey = serverKey;
+    }
+
+    /**
+     * 连接并登录FTP服务器，以二进制、被动模式传输
+     * <p>
+     * 连接、控制连接读取、数据连接读取都设有超时，不可达或接受连接后不再应答的服务器不会一直占住线程。
+     *
+     * @param hostName          主机
+     * @param port              端口
+     * @param userName          用户名
+     * @param password          密码
+     * @param account           账户，可空
+     * @param connectTimeout    建立连接的超时时间（毫秒）
+     * @param controlTimeout    控制连接读取应答的超时时间（毫秒），NOOP检查也受此约束
+     * @param dataTimeout       数据连接读取的超时时间（毫秒）
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpSession
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public static FtpSession open(String hostName, int port, String userName, String password, String account,
+                                  int connectTimeout, int controlTimeout, int dataTimeout) throws IOException {
+        FTPClient ftpClient = new FTPClient();
+        ftpClient.setConnectTimeout(connectTimeout);
+        //连接建立后套接字的默认读取超时，登录阶段即生效
+        ftpClient.setDefaultTimeout(controlTimeout);
+        ftpClient.setDataTimeout(dataTimeout);
+        try {
+            ftpClient.connect(hostName, port);
+            ftpClient.setSoTimeout(controlTimeout);
+            if (!FTPReply.isPositiveCompletion(ftpClient.getReplyCode())) {
+                throw new IOException("FTP服务器【" + hostName + ":" + port + "】拒绝连接：" + ftpClient.getReplyString());
+            }
+            boolean loggedIn = null == account || "".equals(account.trim())
+                    ? ftpClient.login(userName, password)
+                    : ftpClient.login(userName, password, account);
+            if (!loggedIn) {
+                throw new IOException("FTP服务器【" + hostName + ":" + port + "】登录失败：" + ftpClient.getReplyString());
+            }
+            ftpClient.setFileType(FTP.BINARY_FILE_TYPE);
+            ftpClient.enterLocalPassiveMode();
+            return new FtpSession(ftpClient, new FtpServerKey(hostName, port, userName, account));
+        } catch (IOException | RuntimeException e) {
+            disconnectQuietly(ftpClient);
+            throw e;
+        }
+    }
+
+    /**
+     * 下载远程文件并写入指定的输出流
+     *
+     * @param remotePath 远程文件路径
+     * @param out        输出流，由调用者关闭
+     * @return boolean 服务器是否确认传输成功
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public boolean retrieveFile(String remotePath, OutputStream out) throws IOException {
+        return this.ftpClient.retrieveFile(remotePath, this.throttle(out));
+    }
+
+    /**
+     * 从指定偏移量开始（REST）下载远程文件，写入指定的输出流
+     *
+     * @param remotePath 远程文件路径
+     * @param out        输出流，由调用者关闭
+     * @param offset     起始偏移量
+     * @return boolean 服务器是否确认传输成功
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public boolean retrieveFile(String remotePath, OutputStream out, long offset) throws IOException {
+        this.ftpClient.setRestartOffset(offset);
+        return this.ftpClient.retrieveFile(remotePath, this.throttle(out));
+    }
+
+    /**
+     * 从指定偏移量开始（REST）下载一段内容，按位置写入本地文件的对应区间
+     * <p>
+     * 读满指定长度后若远程文件仍有剩余内容，则中止本次传输，此时会话的状态不确定，调用者应将其视为已损坏。
+     *
+     * @param remotePath 远程文件路径
+     * @param offset     起始偏移量
+     * @param length     长度
+     * @param channel    本地文件通道，写入位置与远程偏移量一致
+     * @return boolean 传输是否正常结束（读到远程文件末尾且服务器确认成功）；为false时内容已完整写入，但会话不宜复用
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public boolean retrieveRange(String remotePath, long offset, long length, FileChannel channel) throws IOException {
+        return this.retrieveRange(remotePath, offset, length, channel, null);
+    }
+
+    /**
+     * 从指定偏移量开始（REST）下载一段内容，按位置写入本地文件的对应区间，并随写入更新进度
+     *
+     * @param remotePath 远程文件路径
+     * @param offset     起始偏移量
+     * @param length     长度
+     * @param channel    本地文件通道，写入位置与远程偏移量一致
+     * @param progress   写入进度（相对起始偏移量的已写入字节数），可空
+     * @return boolean 传输是否正常结束（读到远程文件末尾且服务器确认成功）；为false时内容已完整写入，但会话不宜复用
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public boolean retrieveRange(String remotePath, long offset, long length, FileChannel channel, FtpSegmentProgress progress) throws IOException {
+        this.ftpClient.setRestartOffset(offset);
+        InputStream in = this.ftpClient.retrieveFileStream(remotePath);
+        if (null == in) {
+            throw new IOException("无法从偏移量【" + offset + "】开始下载【" + remotePath + "】：" + this.ftpClient.getReplyString());
+        }
+        long remaining = length;
+        long position = offset;
+        boolean reachedEnd = false;
+        try {
+            byte[] buffer = new byte[RANGE_BUFFER_SIZE];
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    break;
+                }
+                if (null != this.bandwidthLimiter) {
+                    this.bandwidthLimiter.acquire(read);
+                }
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+                while (byteBuffer.hasRemaining()) {
+                    position += channel.write(byteBuffer, position);
+                }
+                remaining -= read;
+                if (null != progress) {
+                    progress.advance(position - offset);
+                }
+            }
+            if (remaining > 0) {
+                throw new IOException("下载【" + remotePath + "】的区间【" + offset + "，" + (offset + length) + "）时提前结束，缺少【" + remaining + "】字节。");
+            }
+            reachedEnd = in.read() < 0;
+            if (!reachedEnd) {
+                this.ftpClient.abort();
+            }
+        } finally {
+            in.close();
+        }
+        if (!reachedEnd) {
+            try {
+                this.ftpClient.completePendingCommand();
+            } catch (IOException e) {
+                //传输已中止，应答可能是426，忽略
+            }
+            return false;
+        }
+        return this.ftpClient.completePendingCommand();
+    }
+
+    /**
+     * 获取远程文件的大小与修改时间
+     * <p>
+     * 优先使用MLST，服务器不支持时改用SIZE与MDTM。
+     *
+     * @param remotePath 远程文件路径
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.RemoteFileInfo 无法取得时返回null
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public RemoteFileInfo stat(String remotePath) throws IOException {
+        FTPFile ftpFile = null;
+        if (this.ftpClient.hasFeature("MLST")) {
+            ftpFile = this.ftpClient.mlistFile(remotePath);
+        }
+        if (null != ftpFile && ftpFile.getSize() >= 0 && null != ftpFile.getTimestamp()) {
+            return new RemoteFileInfo(ftpFile.getSize(), ftpFile.getTimestamp().getTimeInMillis());
+        }
+        String size = this.ftpClient.getSize(remotePath);
+        String modificationTime = this.ftpClient.getModificationTime(remotePath);
+        if (null == size || null == modificationTime) {
+            return null;
+        }
+        try {
+            return new RemoteFileInfo(Long.parseLong(size.trim()), parseMdtm(modificationTime));
+        } catch (NumberFormatException | ParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解析MDTM应答中的时间（yyyyMMddHHmmss，UTC，可能带有应答码或毫秒部分）
+     * @param modificationTime MDTM应答
+     * @return long UTC毫秒
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private static long parseMdtm(String modificationTime) throws ParseException {
+        String value = modificationTime.trim();
+        int blank = value.lastIndexOf(' ');
+        if (blank >= 0) {
+            value = value.substring(blank + 1);
+        }
+        if (value.length() < MDTM_PATTERN.length()) {
+            throw new ParseException(modificationTime, 0);
+        }
+        SimpleDateFormat format = new SimpleDateFormat(MDTM_PATTERN);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.parse(value.substring(0, MDTM_PATTERN.length())).getTime();
+    }
+
+    /**
+     * 最近一次应答
+     * @param
+     * @return java.lang.String
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public String getReplyString() {
+        return this.ftpClient.getReplyString();
+    }
+
+    public FtpServerKey getServerKey() {
+        return serverKey;
+    }
+
+    public long getLastUsedMillis() {
+        return lastUsedMillis;
+    }
+
+    void touch() {
+        this.lastUsedMillis = System.currentTimeMillis();
+    }
+
+    void setBandwidthLimiter(FtpBandwidthLimiter bandwidthLimiter) {
+        this.bandwidthLimiter = bandwidthLimiter;
+    }
+
+    private OutputStream throttle(OutputStream out) {
+        final FtpBandwidthLimiter limiter = this.bandwidthLimiter;
+        if (null == limiter) {
+            return out;
+        }
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                limiter.acquire(1);
+                this.out.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                limiter.acquire(len);
+                this.out.write(b, off, len);
+            }
+        };
+    }
+
+    /**
+     * 以NOOP检查会话是否仍然可用
+     * @param
+     * @return boolean
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public boolean isAlive() {
+        try {
+            return this.ftpClient.isConnected() && this.ftpClient.sendNoOp();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 登出并断开连接
+     * @param
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void close() {
+        try {
+            if (this.ftpClient.isConnected()) {
+                this.ftpClient.logout();
+            }
+        } catch (IOException e) {
+            //连接已不可用，直接断开即可
+        } finally {
+            disconnectQuietly(this.ftpClient);
+        }
+    }
+
+    private static void disconnectQuietly(FTPClient ftpClient) {
+        if (ftpClient.isConnected()) {
+            try {
+                ftpClient.disconnect();
+            } catch (IOException e) {
+                //忽略
+            }
+        }
+    }
+}
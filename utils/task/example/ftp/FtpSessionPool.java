@@ -0,0 +1,377 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已登录FTP会话的连接池
+ * <p>
+ * 按{@link FtpServerKey}复用会话，访问同一服务器的FTP子任务不必每次都重新建立连接和登录。
+ * 借出前以NOOP检查会话是否可用；空闲超时的会话由后台线程关闭；每台主机（主机:端口）同时借出的会话数不超过上限。
+ * <p>
+ * 建立新连接失败时按{@link FtpRetryPolicy}退避重试；每台主机各有一个{@link FtpHostCircuitBreaker}，
+ * 熔断期间直接抛出{@link FtpHostUnavailableException}，不再等待连接许可或连接超时。
+ * <p>
+ * 相关配置：
+ * basedata.ftp.pool.maxPerHost 每台主机的最大连接数，默认4；
+ * basedata.ftp.pool.idleSeconds 会话最长空闲时间（秒），默认60；
+ * basedata.ftp.pool.borrowTimeoutSeconds 等待可用连接的最长时间（秒），默认300；
+ * basedata.ftp.pool.bandwidthBytesPerSecond 每台主机的下载带宽上限（字节/秒），不大于0时不限速，默认0；
+ * basedata.ftp.connectTimeoutMillis 建立连接的超时时间（毫秒），默认15000；
+ * basedata.ftp.soTimeoutMillis 控制连接读取应答的超时时间（毫秒），默认60000；
+ * basedata.ftp.dataTimeoutMillis 数据连接读取的超时时间（毫秒），默认60000；
+ * basedata.ftp.retry.maxAttempts 建立连接（及单个文件下载）的最多尝试次数，默认3；
+ * basedata.ftp.retry.baseDelayMillis 首次重试前的基础等待时间（毫秒），默认1000；
+ * basedata.ftp.retry.maxDelayMillis 重试等待时间上限（毫秒），默认30000；
+ * basedata.ftp.breaker.failureThreshold 熔断器打开前的连续失败次数，默认5；
+ * basedata.ftp.breaker.openSeconds 熔断器打开后的冷却时间（秒），默认60。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpSessionPool
+ * @author: JQY
+ * @create: 2026-10-17 20:10 Via IntelliJ IDEA
+ **/
+@Component
+public class FtpSessionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(FtpSessionPool.class);
+
+    @Value("${basedata.ftp.pool.maxPerHost:4}")
+    private int maxPerHost;
+
+    @Value("${basedata.ftp.pool.idleSeconds:60}")
+    private long idleSeconds;
+
+    @Value("${basedata.ftp.pool.borrowTimeoutSeconds:300}")
+    private long borrowTimeoutSeconds;
+
+    @Value("${basedata.ftp.pool.bandwidthBytesPerSecond:0}")
+    private long bandwidthBytesPerSecond;
+
+    @Value("${basedata.ftp.connectTimeoutMillis:15000}")
+    private int connectTimeoutMillis;
+
+    @Value("${basedata.ftp.soTimeoutMillis:60000}")
+    private int soTimeoutMillis;
+
+    @Value("${basedata.ftp.dataTimeoutMillis:60000}")
+    private int dataTimeoutMillis;
+
+    @Value("${basedata.ftp.retry.maxAttempts:3}")
+    private int retryMaxAttempts;
+
+    @Value("${basedata.ftp.retry.baseDelayMillis:1000}")
+    private long retryBaseDelayMillis;
+
+    @Value("${basedata.ftp.retry.maxDelayMillis:30000}")
+    private long retryMaxDelayMillis;
+
+    @Value("${basedata.ftp.breaker.failureThreshold:5}")
+    private int breakerFailureThreshold;
+
+    @Value("${basedata.ftp.breaker.openSeconds:60}")
+    private long breakerOpenSeconds;
+
+    private FtpRetryPolicy retryPolicy;
+
+    /**
+     * 空闲会话，后进先出以便较早空闲的会话先被回收
+     */
+    private final Map<FtpServerKey, ConcurrentLinkedDeque<FtpSession>> idleSessionMap = new ConcurrentHashMap<>();
+
+    /**
+     * 每台主机的连接许可
+     */
+    private final Map<String, Semaphore> hostPermitMap = new ConcurrentHashMap<>();
+
+    /**
+     * 每台主机的带宽令牌桶
+     */
+    private final Map<String, FtpBandwidthLimiter> bandwidthLimiterMap = new ConcurrentHashMap<>();
+
+    /**
+     * 每台主机的熔断器
+     */
+    private final Map<String, FtpHostCircuitBreaker> circuitBreakerMap = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService evictor;
+
+    @PostConstruct
+    public void start() {
+        this.retryPolicy = new FtpRetryPolicy(this.retryMaxAttempts, this.retryBaseDelayMillis, this.retryMaxDelayMillis);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("FtpSessionPool-空闲连接回收线程-%d").setDaemon(true).build());
+        long period = Math.max(1L, this.idleSeconds / 2);
+        this.evictor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                evictIdle();
+            }
+        }, period, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 每台主机的最大连接数
+     * @param
+     * @return int
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public int getMaxPerHost() {
+        return this.maxPerHost;
+    }
+
+    /**
+     * 重试策略，下载单个文件失败时也按此重试
+     * @param
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpRetryPolicy
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public FtpRetryPolicy getRetryPolicy() {
+        return this.retryPolicy;
+    }
+
+    /**
+     * 各主机熔断器的当前状态与计数
+     * @param
+     * @return java.util.Collection<net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpHostCircuitBreaker>
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public Collection<FtpHostCircuitBreaker> getCircuitBreakers() {
+        return Collections.unmodifiableCollection(this.circuitBreakerMap.values());
+    }
+
+    /**
+     * 借出一个已登录的会话，用完后必须通过{@link #release(FtpSession, boolean)}归还
+     *
+     * @param serverKey 服务器
+     * @param password  密码
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpSession
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public FtpSession borrow(FtpServerKey serverKey, String password) throws IOException, InterruptedException {
+        FtpHostCircuitBreaker circuitBreaker = this.circuitBreakerOf(serverKey.getHostKey());
+        if (circuitBreaker.isRejecting()) {
+            throw this.unavailable(circuitBreaker);
+        }
+        Semaphore permit = this.permitOf(serverKey.getHostKey());
+        if (!permit.tryAcquire(this.borrowTimeoutSeconds, TimeUnit.SECONDS)) {
+            throw new IOException("等待FTP服务器【" + serverKey.getHostKey() + "】的可用连接超时，该主机最多同时使用【" + this.maxPerHost + "】个连接。");
+        }
+        return this.borrowPermitted(serverKey, password, circuitBreaker, permit);
+    }
+
+    /**
+     * 已取得连接许可后，取出空闲会话或建立新会话；失败时归还许可
+     */
+    private FtpSession borrowPermitted(FtpServerKey serverKey, String password, FtpHostCircuitBreaker circuitBreaker, Semaphore permit) throws IOException, InterruptedException {
+        try {
+            ConcurrentLinkedDeque<FtpSession> idleSessions = this.idleSessionsOf(serverKey);
+            FtpSession ftpSession;
+            while (null != (ftpSession = idleSessions.pollFirst())) {
+                if (ftpSession.isAlive()) {
+                    break;
+                }
+                ftpSession.close();
+            }
+            if (null == ftpSession) {
+                ftpSession = this.openWithRetry(serverKey, password, circuitBreaker);
+            }
+            ftpSession.setBandwidthLimiter(this.bandwidthLimiterOf(serverKey.getHostKey()));
+            return ftpSession;
+        } catch (IOException | RuntimeException | InterruptedException e) {
+            permit.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 不等待地借出一个已登录的会话，用完后必须通过{@link #release(FtpSession, boolean)}归还
+     * <p>
+     * 该主机的连接许可已用完或熔断器拒绝时立即返回null；已持有会话的调用者再借会话时应使用本方法，以免互相等待。
+     *
+     * @param serverKey 服务器
+     * @param password  密码
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpSession 无可用连接时返回null
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public FtpSession tryBorrow(FtpServerKey serverKey, String password) throws IOException, InterruptedException {
+        FtpHostCircuitBreaker circuitBreaker = this.circuitBreakerOf(serverKey.getHostKey());
+        if (circuitBreaker.isRejecting()) {
+            return null;
+        }
+        Semaphore permit = this.permitOf(serverKey.getHostKey());
+        if (!permit.tryAcquire()) {
+            return null;
+        }
+        return this.borrowPermitted(serverKey, password, circuitBreaker, permit);
+    }
+
+    /**
+     * 归还会话
+     *
+     * @param ftpSession 借出的会话
+     * @param broken     会话是否已损坏（如传输中发生IO异常），损坏的会话直接关闭
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void release(FtpSession ftpSession, boolean broken) {
+        FtpServerKey serverKey = ftpSession.getServerKey();
+        try {
+            if (broken) {
+                ftpSession.close();
+            } else {
+                ftpSession.touch();
+                this.idleSessionsOf(serverKey).offerFirst(ftpSession);
+            }
+        } finally {
+            this.permitOf(serverKey.getHostKey()).release();
+        }
+    }
+
+    /**
+     * 关闭所有空闲会话
+     * @param
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    @PreDestroy
+    public void close() {
+        if (null != this.evictor) {
+            this.evictor.shutdownNow();
+        }
+        for (ConcurrentLinkedDeque<FtpSession> idleSessions : this.idleSessionMap.values()) {
+            FtpSession ftpSession;
+            while (null != (ftpSession = idleSessions.pollFirst())) {
+                ftpSession.close();
+            }
+        }
+    }
+
+    /**
+     * 建立新连接，失败时退避重试，直至成功、用尽尝试次数或熔断器拒绝
+     */
+    private FtpSession openWithRetry(FtpServerKey serverKey, String password, FtpHostCircuitBreaker circuitBreaker) throws IOException, InterruptedException {
+        IOException lastException = null;
+        for (int attempt = 1; attempt <= this.retryPolicy.getMaxAttempts(); attempt++) {
+            if (attempt > 1) {
+                this.retryPolicy.sleepBeforeRetry(attempt - 1);
+            }
+            if (!circuitBreaker.allowRequest()) {
+                throw this.unavailable(circuitBreaker);
+            }
+            try {
+                FtpSession ftpSession = FtpSession.open(serverKey.getHostName(), serverKey.getPort(), serverKey.getUserName(), password, serverKey.getAccount(),
+                        this.connectTimeoutMillis, this.soTimeoutMillis, this.dataTimeoutMillis);
+                circuitBreaker.onSuccess();
+                return ftpSession;
+            } catch (IOException e) {
+                circuitBreaker.onFailure();
+                lastException = e;
+                logger.warn("\r\n第【" + attempt + "】次连接FTP服务器【" + serverKey.getHostKey() + "】失败：" + e.getMessage() + "\r\n");
+            } catch (RuntimeException e) {
+                //非IO异常也要结束本次试探，否则半开状态的熔断器将一直拒绝该主机
+                circuitBreaker.onFailure();
+                throw e;
+            }
+        }
+        throw lastException;
+    }
+
+    private FtpHostUnavailableException unavailable(FtpHostCircuitBreaker circuitBreaker) {
+        return new FtpHostUnavailableException("FTP服务器【" + circuitBreaker.getHostKey() + "】的熔断器处于【"
+                + circuitBreaker.getState() + "】状态，暂不建立连接。");
+    }
+
+    private FtpBandwidthLimiter bandwidthLimiterOf(String hostKey) {
+        if (this.bandwidthBytesPerSecond <= 0) {
+            return null;
+        }
+        FtpBandwidthLimiter bandwidthLimiter = this.bandwidthLimiterMap.get(hostKey);
+        if (null == bandwidthLimiter) {
+            FtpBandwidthLimiter created = new FtpBandwidthLimiter(this.bandwidthBytesPerSecond);
+            bandwidthLimiter = this.bandwidthLimiterMap.putIfAbsent(hostKey, created);
+            if (null == bandwidthLimiter) {
+                bandwidthLimiter = created;
+            }
+        }
+        return bandwidthLimiter;
+    }
+
+    private FtpHostCircuitBreaker circuitBreakerOf(String hostKey) {
+        FtpHostCircuitBreaker circuitBreaker = this.circuitBreakerMap.get(hostKey);
+        if (null == circuitBreaker) {
+            FtpHostCircuitBreaker created = new FtpHostCircuitBreaker(hostKey, this.breakerFailureThreshold,
+                    TimeUnit.SECONDS.toMillis(this.breakerOpenSeconds));
+            circuitBreaker = this.circuitBreakerMap.putIfAbsent(hostKey, created);
+            if (null == circuitBreaker) {
+                circuitBreaker = created;
+            }
+        }
+        return circuitBreaker;
+    }
+
+    private void evictIdle() {
+        final long deadline = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(this.idleSeconds);
+        for (ConcurrentLinkedDeque<FtpSession> idleSessions : this.idleSessionMap.values()) {
+            Iterator<FtpSession> iterator = idleSessions.descendingIterator();
+            while (iterator.hasNext()) {
+                FtpSession ftpSession = iterator.next();
+                if (ftpSession.getLastUsedMillis() < deadline && idleSessions.removeLastOccurrence(ftpSession)) {
+                    ftpSession.close();
+                }
+            }
+        }
+    }
+
+    private Semaphore permitOf(String hostKey) {
+        Semaphore permit = this.hostPermitMap.get(hostKey);
+        if (null == permit) {
+            Semaphore created = new Semaphore(this.maxPerHost, true);
+            permit = this.hostPermitMap.putIfAbsent(hostKey, created);
+            if (null == permit) {
+                permit = created;
+            }
+        }
+        return permit;
+    }
+
+    private ConcurrentLinkedDeque<FtpSession> idleSessionsOf(FtpServerKey serverKey) {
+        ConcurrentLinkedDeque<FtpSession> idleSessions = this.idleSessionMap.get(serverKey);
+        if (null == idleSessions) {
+            ConcurrentLinkedDeque<FtpSession> created = new ConcurrentLinkedDeque<>();
+            idleSessions = this.idleSessionMap.putIfAbsent(serverKey, created);
+            if (null == idleSessions) {
+                idleSessions = created;
+            }
+        }
+        return idleSessions;
+    }
+}
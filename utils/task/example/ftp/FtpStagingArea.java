@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * FTP文件的暂存区
+ * <p>
+ * 下载中（包括留有断点）的文件都放在暂存目录，确认为新文件后才以原子的Files.move移入basedata.ftp.realPath，
+ * 扫描realPath的下游不会看到未完成或重复的文件；重复文件直接在暂存目录删除。
+ * 暂存目录应与realPath位于同一文件系统，移动只是改名，不复制文件内容。
+ * <p>
+ * 配置了basedata.ftp.executionLinkPath时，还会在其下按执行编号建立子目录，以硬链接的方式放入本次执行的新文件，
+ * 同样不复制内容；无法建立硬链接（如跨文件系统）时只记录日志。
+ * <p>
+ * 开启basedata.ftp.storage.compress时，新文件以{@link FtpStorageCodec}的格式压缩后再移入realPath（存储名不变），
+ * 下游须以{@link FtpStorageCodec#open(File)}读取。
+ * <p>
+ * 相关配置：
+ * basedata.ftp.stagingPath 暂存目录，默认为与realPath同级、名为“realPath的目录名.staging”的目录（如/data/ftp对应/data/ftp.staging，realPath是否以“/”结尾均相同）；
+ * basedata.ftp.executionLinkPath 按执行编号归集新文件的目录，默认不归集；
+ * basedata.ftp.storage.compress 是否压缩存储，默认false；
+ * basedata.ftp.storage.compressionLevel 压缩级别（0～9），默认1，偏重速度。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpStagingArea
+ * @author: JQY
+ * @create: 2026-10-17 23:20 Via IntelliJ IDEA
+ **/
+@Component
+public class FtpStagingArea {
+
+    private static final Logger logger = LoggerFactory.getLogger(FtpStagingArea.class);
+
+    @Value("${basedata.ftp.realPath}")
+    private String realPath;
+
+    @Value("${basedata.ftp.stagingPath:}")
+    private String stagingPath;
+
+    @Value("${basedata.ftp.executionLinkPath:}")
+    private String executionLinkPath;
+
+    @Value("${basedata.ftp.storage.compress:false}")
+    private boolean compress;
+
+    @Value("${basedata.ftp.storage.compressionLevel:1}")
+    private int compressionLevel;
+
+    @Value("${basedata.digestAlgorithm}")
+    private String digestAlgorithm;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (null == this.stagingPath || "".equals(this.stagingPath.trim())) {
+            Path real = Paths.get(this.realPath);
+            this.stagingPath = null == real.getFileName()
+                    ? real.resolve(".staging").toString()
+                    : real.resolveSibling(real.getFileName() + ".staging").toString();
+        }
+        Files.createDirectories(Paths.get(this.stagingPath));
+        Files.createDirectories(Paths.get(this.realPath));
+    }
+
+    /**
+     * 暂存目录中的文件
+     * @param saveName 存储名
+     * @return java.io.File
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public File stagingFile(String saveName) {
+        return new File(this.stagingPath, saveName);
+    }
+
+    /**
+     * 把确认为新文件的暂存文件移入正式目录（需要时先压缩），并按执行编号建立硬链接
+     *
+     * @param stagedFile    暂存文件
+     * @param taskExecuteId 当前任务执行编号
+     * @param hashValue     文件哈希值，压缩时写入文件头
+     * @return java.io.File 正式目录中的文件
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public File publish(File stagedFile, BigDecimal taskExecuteId, String hashValue) throws IOException {
+        Path target = Paths.get(this.realPath, stagedFile.getName());
+        File source = stagedFile;
+        if (this.compress) {
+            source = new File(stagedFile.getPath() + ".bdz");
+            long rawSize = stagedFile.length();
+            try {
+                long storedSize = FtpStorageCodec.encode(stagedFile, source, this.digestAlgorithm, hashValue, this.compressionLevel);
+                logger.info("\r\n文件【" + stagedFile.getName() + "】压缩存储，原大小【" + rawSize + "】字节，压缩后【" + storedSize + "】字节。\r\n");
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(source.toPath());
+                throw e;
+            }
+        }
+        try {
+            this.move(source.toPath(), target, stagedFile.getName());
+        } catch (IOException | RuntimeException e) {
+            if (source != stagedFile) {
+                //移动失败时删除压缩的中间文件，保留原文件
+                this.discard(source, "\r\n");
+            }
+            throw e;
+        }
+        if (source != stagedFile) {
+            //压缩文件已移入正式目录，原文件不再需要
+            this.discard(stagedFile, "\r\n");
+        }
+        if (null != this.executionLinkPath && !"".equals(this.executionLinkPath.trim())) {
+            Path link = Paths.get(this.executionLinkPath.trim(), String.valueOf(taskExecuteId), stagedFile.getName());
+            try {
+                Files.createDirectories(link.getParent());
+                Files.createLink(link, target);
+            } catch (IOException | UnsupportedOperationException e) {
+                logger.warn("\r\n未能为文件【" + target + "】建立硬链接【" + link + "】。\r\n", e);
+            }
+        }
+        return target.toFile();
+    }
+
+    /**
+     * 撤回已移入正式目录但未能登记的文件，连同按执行编号建立的硬链接一并删除
+     * @param publishedFile 正式目录中的文件
+     * @param taskExecuteId 当前任务执行编号
+     * @param logPrefix     日志前缀
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void withdraw(File publishedFile, BigDecimal taskExecuteId, String logPrefix) {
+        if (null != this.executionLinkPath && !"".equals(this.executionLinkPath.trim())) {
+            this.discard(Paths.get(this.executionLinkPath.trim(), String.valueOf(taskExecuteId), publishedFile.getName()).toFile(), logPrefix);
+        }
+        this.discard(publishedFile, logPrefix);
+    }
+
+    private void move(Path source, Path target, String saveName) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            logger.warn("\r\n暂存目录【" + this.stagingPath + "】与正式目录【" + this.realPath + "】不在同一文件系统，文件【"
+                    + saveName + "】将被复制，请调整basedata.ftp.stagingPath。\r\n");
+            Files.move(source, target);
+        }
+    }
+
+    /**
+     * 删除不再需要的文件，失败时提示手工删除
+     * @param file 待删除的文件
+     * @param logPrefix 日志前缀
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void discard(File file, String logPrefix) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            //不予更新但文件删除失败，应通知管理员
+            logger.info(logPrefix + "文件【" + file + "】删除失败，请手工删除。\r\n", e);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+import org.apache.commons.codec.binary.Hex;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * FTP文件的压缩存储格式
+ * <p>
+ * 格式：4字节魔数“BDZ1”，随后依次为摘要算法名、原文件哈希值（均为writeUTF）、原文件大小（8字节），其后是Deflate压缩的文件内容。
+ * {@link #open(File)}返回边读边解压的流，读到末尾时校验大小与哈希值（记录格式为十六进制时），不一致则抛出IOException；
+ * 对未压缩的文件（没有魔数）直接返回原文件的流，下游可统一以此读取。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpStorageCodec
+ * @author: JQY
+ * @create: 2026-10-17 01:30 Via IntelliJ IDEA
+ **/
+public final class FtpStorageCodec {
+
+    private static final byte[] MAGIC = {'B', 'D', 'Z', '1'};
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private FtpStorageCodec() {
+    }
+
+    /**
+     * 把原文件压缩写入目标文件
+     *
+     * @param rawFile          原文件
+     * @param targetFile       目标文件
+     * @param digestAlgorithm  哈希值所用的摘要算法
+     * @param hashValue        原文件的哈希值（记录格式，见{@link FtpDigestFormat}）
+     * @param compressionLevel 压缩级别，0～9
+     * @return long 目标文件大小
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public static long encode(File rawFile, File targetFile, String digestAlgorithm, String hashValue, int compressionLevel) throws IOException {
+        Deflater deflater = new Deflater(compressionLevel);
+        try (InputStream in = new FileInputStream(rawFile);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(targetFile), BUFFER_SIZE))) {
+            out.write(MAGIC);
+            out.writeUTF(digestAlgorithm);
+            out.writeUTF(hashValue);
+            out.writeLong(rawFile.length());
+            DeflaterOutputStream deflaterOut = new DeflaterOutputStream(out, deflater, BUFFER_SIZE);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                deflaterOut.write(buffer, 0, read);
+            }
+            deflaterOut.finish();
+        } finally {
+            deflater.end();
+        }
+        return targetFile.length();
+    }
+
+    /**
+     * 文件是否为压缩存储格式
+     * @param file 本地文件
+     * @return boolean
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public static boolean isEncoded(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return Arrays.equals(MAGIC, readMagic(in));
+        }
+    }
+
+    /**
+     * 打开本地文件，压缩存储的文件边读边解压并在读完时校验
+     * @param file 本地文件
+     * @return java.io.InputStream 原文件内容
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public static InputStream open(File file) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+        try {
+            in.mark(MAGIC.length);
+            if (!Arrays.equals(MAGIC, readMagic(in))) {
+                in.reset();
+                return in;
+            }
+            DataInputStream header = new DataInputStream(in);
+            String digestAlgorithm = header.readUTF();
+            String hashValue = header.readUTF();
+            long rawSize = header.readLong();
+            MessageDigest messageDigest = MessageDigest.getInstance(digestAlgorithm);
+            final Inflater inflater = new Inflater();
+            InputStream inflaterIn = new InflaterInputStream(in, inflater, BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        inflater.end();
+                    }
+                }
+            };
+            return new VerifyingInputStream(new DigestInputStream(inflaterIn, messageDigest), messageDigest, hashValue, rawSize, file);
+        } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+            in.close();
+            throw e instanceof IOException ? (IOException) e : new IOException("无法读取压缩存储的文件【" + file + "】。", e);
+        }
+    }
+
+    private static byte[] readMagic(InputStream in) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        int total = 0;
+        while (total < magic.length) {
+            int read = in.read(magic, total, magic.length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return magic;
+    }
+
+    /**
+     * 读到末尾时校验大小与哈希值
+     */
+    private static class VerifyingInputStream extends FilterInputStream {
+
+        private final MessageDigest messageDigest;
+
+        private final String hashValue;
+
+        private final long rawSize;
+
+        private final File file;
+
+        private long count = 0;
+
+        private boolean verified = false;
+
+        private VerifyingInputStream(InputStream in, MessageDigest messageDigest, String hashValue, long rawSize, File file) {
+            super(in);
+            this.messageDigest = messageDigest;
+            this.hashValue = hashValue;
+            this.rawSize = rawSize;
+            this.file = file;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                this.verify();
+            } else {
+                this.count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read < 0) {
+                this.verify();
+            } else {
+                this.count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            //跳过的内容也要计入摘要
+            byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(n, 1L))];
+            long skipped = 0;
+            while (skipped < n) {
+                int read = this.read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (read < 0) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void verify() throws IOException {
+            if (this.verified) {
+                return;
+            }
+            this.verified = true;
+            if (this.count != this.rawSize) {
+                throw new IOException("文件【" + this.file + "】解压后大小为【" + this.count + "】，与记录的【" + this.rawSize + "】不一致。");
+            }
+            String actual = Hex.encodeHexString(this.messageDigest.digest());
+            //记录格式与十六进制不兼容时只校验大小
+            if (actual.length() == this.hashValue.length() && !actual.equalsIgnoreCase(this.hashValue)) {
+                throw new IOException("文件【" + this.file + "】解压后哈希值为【" + actual + "】，与记录的【" + this.hashValue + "】不一致。");
+            }
+        }
+    }
+}
@@ -7,13 +7,17 @@ package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
 import net.gmcc.dg.acr.modules.reward.basedata.dao.FtpTaskDOMapper;
 import net.gmcc.dg.acr.modules.reward.basedata.dao.entity.dborm.FtpTaskDO;
 import net.gmcc.dg.acr.modules.reward.basedata.dao.entity.query.impl.FtpTaskQuery;
+import net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.SubTaskGroup;
+import net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.SubTaskResult;
 import net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.Task;
+import net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskResource;
 import net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskResult;
 import net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskStatus;
 import net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskType;
 import net.gmcc.dg.common.exception.BusinessRuntimeException;
 import org.apache.poi.ss.formula.functions.T;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,6 +27,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * FTP层：负责获取基础数据文件，为SDS层准备所需要的基础数据文件。
@@ -38,28 +43,58 @@ public class FtpTask extends Task {
     @Autowired
     private FtpTaskDOMapper ftpTaskListDAO;
 
+    /**
+     * 新文件的发布点，下游可在此订阅
+     */
+    @Autowired
+    private FtpFileStage ftpFileStage;
+
+    /**
+     * 等待所有子任务结束的最长时间（分钟）
+     */
+    @Value("${basedata.ftp.subTaskTimeoutMinutes:240}")
+    private long subTaskTimeoutMinutes;
+
+    /**
+     * 访问同一台主机的子任务最多同时执行的个数，其余排队，让出线程给其它主机的子任务
+     */
+    @Value("${basedata.ftp.subTasksPerHost:2}")
+    private int subTasksPerHost;
+
     /**
      * @param taskExecuteId 当前任务执行编号
+     * @param toDoItemList 待执行的FTP子任务
+     * @param runtimeConfig 本次执行共用的运行配置
      * @return void
      * @author JQY
      * @date 2019/5/6 9:46
      */
-    private void doWorkSingleThread(final BigDecimal taskExecuteId) throws Exception {
-        //获取任务表
-        FtpTaskQuery queryParameter = new FtpTaskQuery();
-        queryParameter.setActive(Short.valueOf("1"));
-        queryParameter.setDeleted(Short.valueOf("0"));
-        List<FtpTaskDO> toDoItemList = ftpTaskListDAO.listByDeletedAndActive(queryParameter);
+    private void doWorkSingleThread(final BigDecimal taskExecuteId, List<FtpTaskDO> toDoItemList, FtpRuntimeConfig runtimeConfig) throws Exception {
         //遍历
         FtpTaskExecuter ftpTaskExecuter = null;
         for (int i = 0; i < toDoItemList.size(); i++) {
             FtpTaskDO subTask = toDoItemList.get(i);
-            ftpTaskExecuter = new FtpTaskExecuter(subTask, taskExecuteId);
+            //核心池已溢出，不再向子任务执行器提交文件下载线程，各子任务在当前线程上顺序下载
+            ftpTaskExecuter = new FtpTaskExecuter(subTask, taskExecuteId, this.ftpFileStage, runtimeConfig);
             ftpTaskExecuter.executeTask();
         }
         return;
     }
 
+    /**
+     * 获取任务表中有效的FTP子任务
+     *
+     * @return java.util.List<net.gmcc.dg.acr.modules.reward.basedata.dao.entity.dborm.FtpTaskDO>
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private List<FtpTaskDO> listToDoItems() {
+        FtpTaskQuery queryParameter = new FtpTaskQuery();
+        queryParameter.setActive(Short.valueOf("1"));
+        queryParameter.setDeleted(Short.valueOf("0"));
+        return ftpTaskListDAO.listByDeletedAndActive(queryParameter);
+    }
+
     /**
      * 以多线程方式开始工作
      * <p>
@@ -73,30 +108,56 @@ public class FtpTask extends Task {
     @Override
 
     public TaskResult startWork(final BigDecimal taskExecuteId) throws Exception {
+        //获取任务表
+        List<FtpTaskDO> toDoItemList;
+        try {
+            toDoItemList = this.listToDoItems();
+        } catch (Exception e) {
+            this.ftpFileStage.complete(taskExecuteId);
+            throw e;
+        }
+        return this.startWork(this.taskResource, toDoItemList);
+    }
+
+    /**
+     * 以多线程方式执行指定的FTP子任务
+     * <p>
+     * 不读取任务表，供压测等场景直接给出子任务；执行资源由参数给出，不读写本任务的{@link #taskResource}，
+     * 压测等场景可与任务中心调度的执行并存。
+     *
+     * @param taskResource 执行资源，其执行编号即本次执行的编号
+     * @param toDoItemList 待执行的FTP子任务
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskResult
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public TaskResult startWork(TaskResource taskResource, List<FtpTaskDO> toDoItemList) throws Exception {
+        final BigDecimal taskExecuteId = taskResource.getTaskExecuteId();
         TaskResult taskResult= new TaskResult(TaskStatus.FINISHED, null);
         try {
-            if (this.taskResource.getActiveCount() > this.taskResource.getCorePoolSize()) {
+            //本次执行的所有子任务共用一份运行配置
+            FtpRuntimeConfig runtimeConfig = FtpRuntimeConfig.load();
+            if (taskResource.getActiveCount() > taskResource.getCorePoolSize()) {
                 //如果当前核心池已溢出，则转入单线程方式。
-                this.doWorkSingleThread(taskExecuteId);
+                this.doWorkSingleThread(taskExecuteId, toDoItemList, runtimeConfig);
                 return taskResult;
             }
 
-            //获取任务表
-            FtpTaskQuery queryParameter = new FtpTaskQuery();
-            queryParameter.setActive(Short.valueOf("1"));
-            queryParameter.setDeleted(Short.valueOf("0"));
-            List<FtpTaskDO> toDoItemList = ftpTaskListDAO.listByDeletedAndActive(queryParameter);
             //遍历
+            //按主机限制并发，在各主机之间轮转，全组不超过核心池大小
+            SubTaskGroup<Object> subTaskGroup = taskResource.newSubTaskGroup(this.subTasksPerHost, taskResource.getCorePoolSize());
             for (int i = 0; i < toDoItemList.size(); i++) {
                 FtpTaskDO subTask = toDoItemList.get(i);
-                this.taskResource.submitListenable(new FtpTaskExecuter(subTask, taskExecuteId));
+                subTaskGroup.submit(subTask.getFtpIp() + ":" + subTask.getFtpPort(), new FtpTaskExecuter(subTask, taskExecuteId, this.ftpFileStage, runtimeConfig, taskResource));
             }
-            do {
-                //确保所有子任务线程都启动了
-            }while (this.taskResource.getActiveCount()<toDoItemList.size());
-            while (this.taskResource.getActiveCount()>0){
-                //只要还有子任务没有做完就等着。
-                Thread.sleep(3000);
+            //只等待本任务提交的子任务，最后一个子任务结束即返回。
+            List<SubTaskResult<Object>> subTaskResultList = subTaskGroup.awaitAll(this.subTaskTimeoutMinutes, TimeUnit.MINUTES);
+            for (int i = 0; i < subTaskResultList.size(); i++) {
+                SubTaskResult<Object> subTaskResult = subTaskResultList.get(i);
+                if (TaskStatus.FINISHED != subTaskResult.getTaskStatus()) {
+                    taskResource.getLogger().error("\r\n执行编号【" + taskExecuteId + "】\r\nFTP子任务编号【" + toDoItemList.get(i).getId() + "】未正常结束，子任务执行结果【" + subTaskResult + "】。\r\n");
+                    taskResult = new TaskResult(TaskStatus.EXIT, subTaskResult.getException());
+                }
             }
             return taskResult;
         } catch (RejectedExecutionException e) {
@@ -104,7 +165,8 @@ public class FtpTask extends Task {
         } catch (Exception e) {
             throw e;
         } finally {
-
+            //通知下游本次任务的文件已全部发布
+            this.ftpFileStage.complete(taskExecuteId);
         }
     }
 
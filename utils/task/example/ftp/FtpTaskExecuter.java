@@ -7,32 +7,47 @@ package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
 import net.gmcc.dg.acr.modules.reward.basedata.dao.FtpRecordDOMapper;
 import net.gmcc.dg.acr.modules.reward.basedata.dao.entity.dborm.FtpRecordDO;
 import net.gmcc.dg.acr.modules.reward.basedata.dao.entity.dborm.FtpTaskDO;
-import net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.ftp.FtpHelper;
+import net.gmcc.dg.acr.modules.reward.basedata.service.convert.helper.task.TaskResource;
 import net.gmcc.dg.common.exception.BusinessRuntimeException;
 import net.gmcc.dg.common.utils.CommonFunctions;
 import net.gmcc.dg.common.utils.DateUtil;
-import net.gmcc.dg.common.utils.FileDigestUtil;
-import net.gmcc.dg.common.utils.SpringUtils;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.env.Environment;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.env.StandardEnvironment;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * FTP子任务的实际执行者
@@ -42,7 +57,7 @@ import java.util.concurrent.Callable;
  * @author: JQY
  * @create: 2019-05-09 10:26 Via IntelliJ IDEA
  **/
-public class FtpTaskExecuter implements Callable {
+public class FtpTaskExecuter implements Callable<Object> {
 
     private BigDecimal ftpTaskId;
 
@@ -62,18 +77,41 @@ public class FtpTaskExecuter implements Callable {
 
     private List<String> fileList =new ArrayList<>();
 
-    private FtpHelper ftpHelper =null;
+    private FtpRecordDOMapper ftpRecordDAO;
 
-    private FtpRecordDOMapper ftpRecordDAO=SpringUtils.getBean(FtpRecordDOMapper.class);
+    /**
+     * FTP会话连接池
+     */
+    private FtpSessionPool ftpSessionPool;
+
+    /**
+     * 远程文件变更检测缓存
+     */
+    private FtpRemoteFileCache remoteFileCache;
+
+    /**
+     * 已登记文件哈希值的进程内索引
+     */
+    private FtpHashIndex hashIndex;
+
+    /**
+     * 未完成传输的断点存储
+     */
+    private FtpTransferCheckpointStore checkpointStore;
+
+    /**
+     * 新文件的发布点，可空
+     */
+    private FtpFileStage ftpFileStage;
 
     /**
      * 目标文件列表的分割符
      */
     private String partitionSymbol;
     /**
-     * 目标文件列表的分割符
+     * 下载中的文件所在的暂存区
      */
-    private String actualSavePath;
+    private FtpStagingArea stagingArea;
 
     /**
      * 所使用的摘要算法
@@ -81,48 +119,117 @@ public class FtpTaskExecuter implements Callable {
     private String digestAlgorithm;
 
     /**
-     * 因为不适用spring注解而手工获取的spring变量
+     * 同时下载的文件数，实际不超过连接池对每台主机的连接数上限
      */
-    private  Environment springEnv = SpringUtils.getBean(StandardEnvironment.class);
+    private int filesParallelism=1;
 
-    private DataSourceTransactionManager transactionManager=SpringUtils.getBean(DataSourceTransactionManager.class);
+    /**
+     * 不小于此大小（字节）的文件分段下载，不大于0时不分段
+     */
+    private long segmentThresholdBytes=0L;
+
+    /**
+     * 分段下载时的段数
+     */
+    private int segmentCount=4;
+
+    /**
+     * 探测模式：先只计算远程文件的哈希值而不落盘，哈希值未登记过才下载。
+     * 由basedata.ftp.probeTaskIds（逗号分隔的FTP子任务编号）指定，适用于内容大多不变的子任务，内容变化的文件要传输两次
+     */
+    private boolean probeMode=false;
+
+    /**
+     * 本子任务的FTP获取记录批量登记
+     */
+    private FtpRecordBatch recordBatch;
+
+    private DataSourceTransactionManager transactionManager;
 
     private static final Logger logger = LoggerFactory.getLogger(FtpTaskExecuter.class);
 
+    /**
+     * 写入本地文件时的缓冲区大小
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 传输中更新断点的字节间隔与时间间隔，先到者为准
+     */
+    private static final long CHECKPOINT_INTERVAL_BYTES = 8L * 1024 * 1024;
+
+    private static final long CHECKPOINT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    /**
+     * 并行下载文件、分段下载所用的执行资源，与FTP子任务共用同一子任务执行器及其并发限制；为空时只在当前线程上顺序下载
+     */
+    private TaskResource taskResource;
+
     private String errorMessagePrefix ="FTP子任务执行失败。";
 
     private String logPrefix="\r\nFTP子任务\r\n";
 
     public FtpTaskExecuter(FtpTaskDO subTask,BigDecimal taskExecuteId) {
+        this(subTask,taskExecuteId,null);
+    }
+
+    /**
+     * @param subTask FTP子任务
+     * @param taskExecuteId 当前任务执行编号
+     * @param ftpFileStage 新文件登记后发布到此处，可空
+     */
+    public FtpTaskExecuter(FtpTaskDO subTask,BigDecimal taskExecuteId,FtpFileStage ftpFileStage) {
+        this(subTask,taskExecuteId,ftpFileStage,FtpRuntimeConfig.load());
+    }
+
+    /**
+     * @param subTask FTP子任务
+     * @param taskExecuteId 当前任务执行编号
+     * @param ftpFileStage 新文件登记后发布到此处，可空
+     * @param runtimeConfig 本次执行共用的运行配置
+     */
+    public FtpTaskExecuter(FtpTaskDO subTask,BigDecimal taskExecuteId,FtpFileStage ftpFileStage,FtpRuntimeConfig runtimeConfig) {
+        this(subTask,taskExecuteId,ftpFileStage,runtimeConfig,null);
+    }
+
+    /**
+     * @param subTask FTP子任务
+     * @param taskExecuteId 当前任务执行编号
+     * @param ftpFileStage 新文件登记后发布到此处，可空
+     * @param runtimeConfig 本次执行共用的运行配置
+     * @param taskResource 并行下载文件、分段下载所用的执行资源，为空时只在当前线程上顺序下载
+     */
+    public FtpTaskExecuter(FtpTaskDO subTask,BigDecimal taskExecuteId,FtpFileStage ftpFileStage,FtpRuntimeConfig runtimeConfig,TaskResource taskResource) {
+        this.taskResource=taskResource;
+        this.ftpFileStage=ftpFileStage;
+        this.ftpRecordDAO=runtimeConfig.getFtpRecordDAO();
+        this.ftpSessionPool=runtimeConfig.getFtpSessionPool();
+        this.remoteFileCache=runtimeConfig.getRemoteFileCache();
+        this.hashIndex=runtimeConfig.getHashIndex();
+        this.checkpointStore=runtimeConfig.getCheckpointStore();
+        this.stagingArea=runtimeConfig.getStagingArea();
+        this.transactionManager=runtimeConfig.getTransactionManager();
         if(null!=subTask){
-            //读取配置文件
-            this.partitionSymbol=springEnv.getProperty("basedata.ftp.partitionSymbol");
-            this.actualSavePath=springEnv.getProperty("basedata.ftp.realPath");
-            this.digestAlgorithm=springEnv.getProperty("basedata.digestAlgorithm");
+            //读取配置
+            this.partitionSymbol=runtimeConfig.getPartitionSymbol();
+            this.digestAlgorithm=runtimeConfig.getDigestAlgorithm();
+            this.filesParallelism=runtimeConfig.getFilesParallelism();
+            this.segmentThresholdBytes=runtimeConfig.getSegmentThresholdBytes();
+            this.segmentCount=runtimeConfig.getSegmentCount();
             //初始化任务
             this.taskExecuteId=taskExecuteId;
             this.ftpTaskId=subTask.getId();
+            this.probeMode=runtimeConfig.isProbeTask(this.ftpTaskId);
             this.hostName = subTask.getFtpIp();
             this.port = Integer.parseInt(subTask.getFtpPort());
             this.userName = subTask.getFtpUsername();
             this.account = subTask.getFtpAccount();
             this.password = subTask.getFtpPassword();
-            String targetFileList=subTask.getTargetFileList();
-            if(null!=targetFileList&&!"".equals(targetFileList)){
-                if(targetFileList.contains(partitionSymbol)){
-                    String[] fileArray=subTask.getTargetFileList().split(partitionSymbol);
-                    for (int i = 0; i < fileArray.length; i++) {
-                        if(!"".equals( fileArray[i].trim())){
-                            this.fileList.add(fileArray[i]);
-                        }
-                    }
-                }else {
-                    this.fileList.add(targetFileList);
-                }
-            }
+            this.fileList.addAll(runtimeConfig.splitTargetFiles(subTask.getTargetFileList()));
             this.savePath=subTask.getSavePath()==null?"":subTask.getSavePath().trim();
             this.logPrefix="\r\n执行编号【" + this.taskExecuteId + "】\r\nFTP子任务编号【"+this.ftpTaskId+"】\r\n任务详情：从【"+this.hostName+":"+this.port+"】获取【"+subTask.getTargetFileList()+"】\r\n";
             this.errorMessagePrefix=this.logPrefix+"FTP子任务执行失败。\r\n";
+            this.recordBatch=new FtpRecordBatch(runtimeConfig,this.ftpFileStage,this.taskExecuteId,this.logPrefix);
         }
     }
 
@@ -138,11 +245,13 @@ public class FtpTaskExecuter implements Callable {
                 ", taskExecuteId=" + taskExecuteId +
                 ", savePath='" + savePath + '\'' +
                 ", fileList=" + fileList +
-                ", ftpHelper=" + ftpHelper +
                 ", ftpRecordDAO=" + ftpRecordDAO +
                 ", partitionSymbol='" + partitionSymbol + '\'' +
-                ", actualSavePath='" + actualSavePath + '\'' +
                 ", digestAlgorithm='" + digestAlgorithm + '\'' +
+                ", filesParallelism=" + filesParallelism +
+                ", segmentThresholdBytes=" + segmentThresholdBytes +
+                ", segmentCount=" + segmentCount +
+                ", probeMode=" + probeMode +
                 ", errorMessagePrefix='" + errorMessagePrefix + '\'' +
                 '}';
     }
@@ -154,89 +263,663 @@ public class FtpTaskExecuter implements Callable {
      * @date 2019/5/13 15:37
      */
     public void executeTask(){
-        ftpHelper=FtpHelper.connectFtp(this.hostName,null,this.port,this.userName,this.password,this.account);
         Date now=new Date();
-        final String dateTimePattern = "yyyyMMdd";
-        String currentFile="";
-//        //开启事务
-//        DefaultTransactionDefinition transactionDefinition = new DefaultTransactionDefinition();
-//            // 事物隔离级别，开启新事务
-//        transactionDefinition.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
-//            // 获得事务状态
-//        TransactionStatus transactionStatus = null;
+        //同时下载的文件数不超过连接池对每台主机的连接数上限
+        int workerCount=null==this.taskResource?1:Math.min(Math.min(this.filesParallelism,this.ftpSessionPool.getMaxPerHost()),this.fileList.size());
         try {
-//            transactionStatus=this.transactionManager.getTransaction(transactionDefinition);
-            if(null==ftpHelper){
-                logger.error(errorMessagePrefix +"原因：未能与FTP服务器【"+hostName+":"+port+"】建立连接。\r\n");
-                return;
+            if(workerCount<=1){
+                this.downloadFiles(new ConcurrentLinkedQueue<>(this.fileList),now);
+            }else {
+                this.downloadFilesInParallel(workerCount,now);
             }
-            for (int i = 0; i < fileList.size(); i++) {
-                currentFile=fileList.get(i).trim();
-                String currentFileName=currentFile.substring(0,currentFile.lastIndexOf("."));
-                String currentFileType=currentFile.substring(currentFile.lastIndexOf("."));
-                //实际存储名=文件名+年月日+唯一序列号
-                String actualSaveName=currentFileName.concat(DateUtil.DateToStringByFormat(now,dateTimePattern)).concat(CommonFunctions.generateUniqueNumber()).concat(currentFileType);
-                boolean saveFileFlag=ftpHelper.downloadFile(this.savePath.concat(currentFile),actualSavePath.concat(actualSaveName));
-                if(saveFileFlag){
-                    File savedFile=new File(actualSavePath,actualSaveName);
-                    if(savedFile.exists()&&savedFile.isFile()&&savedFile.canRead()){
-                        /**
-                         * 刚保存的文件的哈希值
-                         */
-                        String hashValue= FileDigestUtil.getFileDigest(this.digestAlgorithm,savedFile,logger);
-                        if(null!=ftpRecordDAO.getByHashValue(hashValue)){
-                            logger.info(this.logPrefix+"文件【"+currentFile+"】（哈希值【"+hashValue+"】）未被修改，不予更新。\r\n");
-                            if(!savedFile.delete()){
-                                //不予更新但文件删除失败，应通知管理员
-                                logger.info(this.logPrefix+"文件【"+actualSavePath+actualSaveName+"】删除失败，请手工删除。\r\n");
-                            }
-                            continue;
-                        }
-                        //添加FTP获取记录
-                        FtpRecordDO saveRecord=new FtpRecordDO();
-                        saveRecord.setFileHash(hashValue);
-                        saveRecord.setFileName(currentFileName);
-                        saveRecord.setFileType(currentFileType);
-                        saveRecord.setFtpTaskId(this.ftpTaskId);
-                        saveRecord.setRecordTime(now);
-                        saveRecord.setSaveName(actualSaveName);
-                        saveRecord.setSourceIp(this.hostName.substring(0,this.hostName.length()>15?15:this.hostName.length()));
-                        saveRecord.setSourcePath(this.savePath);
-                        saveRecord.setTaskExeRecordId(this.taskExecuteId);
-                        int daoResult=this.ftpRecordDAO.insertSelective(saveRecord);
-                        if(1!=daoResult){
-                            throw new BusinessRuntimeException("原因：FTP记录插入异常，更新了【"+daoResult+"】条记录。\r\n");
-                        }
-                    }else {
-                        logger.warn(this.logPrefix+"服务器文件【"+actualSavePath+actualSaveName+"】无法读取，不予更新。\r\n");
-                        if(!savedFile.delete()){
-                            //不予更新但文件删除失败，应通知管理员
-                            logger.info(this.logPrefix+"文件【"+actualSavePath+actualSaveName+"】删除失败，请手工删除。\r\n");
-                        }
+        } finally {
+            try {
+                this.recordBatch.flush();
+            } finally {
+                this.remoteFileCache.save();
+            }
+        }
+    }
+
+    /**
+     * 以多个会话同时下载文件列表
+     * <p>
+     * 当前线程也参与下载，其余下载线程取自子任务执行器，与FTP子任务一同受其并发限制；所有文件的获取记录都归属于本子任务的执行编号。
+     * 执行器繁忙时，当前线程下载完全部文件后，尚未开始的下载线程不再执行，不会因等待执行器而卡住。
+     *
+     * @param workerCount 同时下载的文件数
+     * @param now 本次执行的时间
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private void downloadFilesInParallel(int workerCount,final Date now){
+        final Queue<String> pendingFiles=new ConcurrentLinkedQueue<>(this.fileList);
+        List<Future<?>> futureList=new ArrayList<>(workerCount-1);
+        //下载线程开始时先占位，当前线程结束后占到的即为未开始的下载线程
+        List<AtomicBoolean> workerClaims=new ArrayList<>(workerCount-1);
+        for (int i = 1; i < workerCount; i++) {
+            final AtomicBoolean workerClaim=new AtomicBoolean(false);
+            Future<?> future=this.submitWorker(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    if(workerClaim.compareAndSet(false,true)){
+                        downloadFiles(pendingFiles,now);
                     }
-                }else {
-                    logger.warn(this.logPrefix+"文件【"+currentFile+"】未能成功保存，任务执行编号【"+this.taskExecuteId+"】。\r\n");
+                    return null;
                 }
+            });
+            if(null==future){
+                break;
             }
+            futureList.add(future);
+            workerClaims.add(workerClaim);
+        }
+        BusinessRuntimeException businessException=null;
+        try {
+            this.downloadFiles(pendingFiles,now);
         } catch (BusinessRuntimeException e){
-            //数据库操作异常
-            logger.error(errorMessagePrefix +e.getMsg());
-//            this.transactionManager.rollback(transactionStatus);
+            businessException=e;
+        }
+        for (int i = 0; i < futureList.size(); i++) {
+            Future<?> future=futureList.get(i);
+            if(workerClaims.get(i).compareAndSet(false,true)){
+                future.cancel(false);
+                continue;
+            }
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if(e.getCause() instanceof BusinessRuntimeException&&null==businessException){
+                    businessException=(BusinessRuntimeException) e.getCause();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error(errorMessagePrefix +"原因：等待文件下载结束时被中断。\r\n");
+                break;
+            }
+        }
+        if(null!=businessException){
+            throw businessException;
+        }
+    }
+
+    /**
+     * 向子任务执行器提交一个下载线程
+     * @param worker 下载线程
+     * @return java.util.concurrent.Future<?> 执行器拒绝时返回null，由当前线程承担其工作
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private Future<?> submitWorker(Callable<Void> worker){
+        try {
+            return this.taskResource.submitListenable(worker);
+        } catch (Exception e) {
+            logger.info(this.logPrefix+"子任务执行器未接受下载线程，由当前线程下载：" + e + "\r\n");
+            return null;
+        }
+    }
+
+    /**
+     * 借用一个会话，依次下载队列中的文件，直至队列为空
+     * <p>
+     * 某个文件发生IO异常时丢弃该会话，按连接池的重试策略退避后换一个会话重试该文件（有断点时从断点续传），
+     * 同一文件的尝试次数用尽或主机熔断时放弃剩余文件。
+     *
+     * @param pendingFiles 待下载的文件
+     * @param now 本次执行的时间
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private void downloadFiles(Queue<String> pendingFiles,Date now){
+        FtpRetryPolicy retryPolicy=this.ftpSessionPool.getRetryPolicy();
+        String currentFile=null;
+        //当前文件已失败的次数
+        int failedAttempts=0;
+        while (true){
+            FtpSession ftpSession;
+            try {
+                ftpSession=this.ftpSessionPool.borrow(new FtpServerKey(this.hostName,this.port,this.userName,this.account),this.password);
+            } catch (FtpHostUnavailableException e) {
+                logger.error(errorMessagePrefix +"原因："+e.getMessage()+"\r\n");
+                return;
+            } catch (IOException e) {
+                logger.error(errorMessagePrefix +"原因：未能与FTP服务器【"+hostName+":"+port+"】建立连接。\r\n",e);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error(errorMessagePrefix +"原因：等待FTP服务器【"+hostName+":"+port+"】的连接时被中断。\r\n");
+                return;
+            }
+            //传输中发生IO异常的会话不再归还连接池
+            boolean sessionBroken=false;
+//            //开启事务
+//            DefaultTransactionDefinition transactionDefinition = new DefaultTransactionDefinition();
+//                // 事物隔离级别，开启新事务
+//            transactionDefinition.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+//                // 获得事务状态
+//            TransactionStatus transactionStatus = null;
+            try {
+//                transactionStatus=this.transactionManager.getTransaction(transactionDefinition);
+                if(null==currentFile){
+                    currentFile=pendingFiles.poll();
+                }
+                while (null!=currentFile) {
+                    this.downloadFile(ftpSession,currentFile.trim(),now);
+                    failedAttempts=0;
+                    currentFile=pendingFiles.poll();
+                }
+                return;
+            } catch (BusinessRuntimeException e){
+                //数据库操作异常
+                logger.error(errorMessagePrefix +e.getMsg());
+//                this.transactionManager.rollback(transactionStatus);
+                throw e;
+            }catch (IOException e) {
+                sessionBroken=true;
+                if(++failedAttempts>=retryPolicy.getMaxAttempts()){
+                    logger.error(errorMessagePrefix +"原因：从FTP服务器【"+hostName+":"+port+"】下载文件【" +currentFile+
+                            "】时发生IO异常，已尝试【"+failedAttempts+"】次。\r\n",e);
+                    return;
+                }
+                logger.warn(this.logPrefix+"下载文件【"+currentFile+"】时发生IO异常，第【"+failedAttempts+"】次重试。\r\n",e);
+            }catch (Exception e){
+                sessionBroken=true;
+                logger.error(errorMessagePrefix,e);
+                return;
+            }finally {
+//                this.transactionManager.commit(transactionStatus);
+                this.ftpSessionPool.release(ftpSession,sessionBroken);
+            }
+            try {
+                retryPolicy.sleepBeforeRetry(failedAttempts);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error(errorMessagePrefix +"原因：等待重试文件【"+currentFile+"】时被中断。\r\n");
+                return;
+            }
+        }
+    }
+
+    /**
+     * 下载并登记一个文件
+     *
+     * @param ftpSession 借用的会话
+     * @param currentFile 目标文件
+     * @param now 本次执行的时间
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private void downloadFile(FtpSession ftpSession,String currentFile,Date now) throws Exception {
+        final String dateTimePattern = "yyyyMMdd";
+        final long fileStartMillis=System.currentTimeMillis();
+        String remotePath=this.savePath.concat(currentFile);
+        RemoteFileInfo remoteFileInfo=this.statQuietly(ftpSession,remotePath);
+        if(this.isUnchanged(remotePath,remoteFileInfo)){
+            logger.info(this.logPrefix+"文件【"+currentFile+"】的大小与修改时间均未变化（"+remoteFileInfo+"），不予下载。\r\n");
+            return;
+        }
+        if(this.probeMode){
+            String probedHash=this.probeDigest(ftpSession,remotePath);
+            probedHash=null==probedHash?null:FtpDigestFormat.formatProbed(this.digestAlgorithm,probedHash);
+            if(null!=probedHash&&this.isRecorded(probedHash)){
+                if(null!=remoteFileInfo){
+                    this.remoteFileCache.put(this.hostName,this.port,remotePath,remoteFileInfo,probedHash);
+                }
+                logger.info(this.logPrefix+"文件【"+currentFile+"】（哈希值【"+probedHash+"】）未被修改，不予下载。\r\n");
+                return;
+            }
+        }
+        String currentFileName=currentFile.substring(0,currentFile.lastIndexOf("."));
+        String currentFileType=currentFile.substring(currentFile.lastIndexOf("."));
+        //有可用断点时沿用上次的存储名，从已下载的位置继续
+        long resumeOffset=0L;
+        String actualSaveName;
+        FtpTransferCheckpoint checkpoint=this.resumableCheckpoint(remotePath,remoteFileInfo);
+        if(null!=checkpoint){
+            actualSaveName=checkpoint.getSaveName();
+            resumeOffset=Math.min(checkpoint.getOffset(),this.stagingArea.stagingFile(actualSaveName).length());
+            logger.info(this.logPrefix+"文件【"+currentFile+"】从断点【"+resumeOffset+"】处继续下载。\r\n");
+        }else {
+            //实际存储名=文件名+年月日+唯一序列号
+            actualSaveName=currentFileName.concat(DateUtil.DateToStringByFormat(now,dateTimePattern)).concat(CommonFunctions.generateUniqueNumber()).concat(currentFileType);
+        }
+        File savedFile=this.stagingArea.stagingFile(actualSaveName);
+        /**
+         * 刚保存的文件的哈希值，边下载边计算，下载失败时为空
+         */
+        String hashValue;
+        //分段下载的文件预先分配了全部大小，不能按文件长度记录断点
+        boolean segmented=null==checkpoint&&this.isSegmented(remoteFileInfo);
+        //开始传输时即记录断点，传输中定期更新，进程被终止时也能续传
+        FtpTransferCheckpoint startCheckpoint=segmented||null==remoteFileInfo
+                ?null
+                :new FtpTransferCheckpoint(remotePath,actualSaveName,remoteFileInfo,resumeOffset);
+        if(null!=startCheckpoint){
+            this.checkpointStore.put(this.ftpTaskId,startCheckpoint);
+        }
+        try {
+            hashValue=segmented
+                    ?this.downloadSegmented(ftpSession,remotePath,savedFile,remoteFileInfo.getSize())
+                    :this.downloadWithDigest(ftpSession,remotePath,savedFile,resumeOffset,startCheckpoint);
+        } catch (IOException e) {
+            //保留未完成的文件，重试时从断点继续
+            if(!segmented&&null!=remoteFileInfo&&savedFile.isFile()&&savedFile.length()>0){
+                this.checkpointStore.put(this.ftpTaskId,new FtpTransferCheckpoint(remotePath,actualSaveName,remoteFileInfo,savedFile.length()));
+                logger.warn(this.logPrefix+"文件【"+currentFile+"】在【"+savedFile.length()+"】字节处中断，已记录断点。\r\n");
+            }
             throw e;
-        }catch (IOException e) {
-            logger.error(errorMessagePrefix +"原因：从FTP服务器【"+hostName+":"+port+"】下载文件【" +currentFile+
-                    "】时发生IO异常。\r\n",e);
-        }catch (Exception e){
-            logger.error(errorMessagePrefix,e);
-        }finally {
-//            this.transactionManager.commit(transactionStatus);
-            if(null!=ftpHelper){
-                ftpHelper.closeServer();
+        }
+        if(null!=startCheckpoint){
+            this.checkpointStore.remove(this.ftpTaskId,remotePath);
+        }
+        if(null!=hashValue&&savedFile.isFile()){
+            //转换为与已有记录一致的格式
+            hashValue=FtpDigestFormat.format(this.digestAlgorithm,hashValue,savedFile,logger);
+        }
+        if(null!=hashValue){
+            if(savedFile.exists()&&savedFile.isFile()&&savedFile.canRead()){
+                if(null!=remoteFileInfo){
+                    this.remoteFileCache.put(this.hostName,this.port,remotePath,remoteFileInfo,hashValue);
+                }
+                //添加FTP获取记录，查重与插入在批量登记时进行
+                FtpRecordDO saveRecord=new FtpRecordDO();
+                saveRecord.setFileHash(hashValue);
+                saveRecord.setFileName(currentFileName);
+                saveRecord.setFileType(currentFileType);
+                saveRecord.setFtpTaskId(this.ftpTaskId);
+                saveRecord.setRecordTime(now);
+                saveRecord.setSaveName(actualSaveName);
+                saveRecord.setSourceIp(this.hostName.substring(0,this.hostName.length()>15?15:this.hostName.length()));
+                saveRecord.setSourcePath(this.savePath);
+                saveRecord.setTaskExeRecordId(this.taskExecuteId);
+                this.recordBatch.add(saveRecord,savedFile,currentFile,System.currentTimeMillis()-fileStartMillis);
+            }else {
+                logger.warn(this.logPrefix+"服务器文件【"+savedFile+"】无法读取，不予更新。\r\n");
+                this.stagingArea.discard(savedFile,this.logPrefix);
+            }
+        }else {
+            logger.warn(this.logPrefix+"文件【"+currentFile+"】未能成功保存，任务执行编号【"+this.taskExecuteId+"】。\r\n");
+            this.stagingArea.discard(savedFile,this.logPrefix);
+        }
+    }
+
+    /**
+     * 是否对该文件分段下载
+     * @param remoteFileInfo 远程文件的元数据，可空
+     * @return boolean
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private boolean isSegmented(RemoteFileInfo remoteFileInfo){
+        return null!=this.taskResource&&null!=remoteFileInfo&&this.segmentThresholdBytes>0&&this.segmentCount>1
+                &&remoteFileInfo.getSize()>=this.segmentThresholdBytes;
+    }
+
+    /**
+     * 分段下载大文件
+     * <p>
+     * 先不等待地向连接池多借至多（段数-1）个会话，借到几个就多分几段，一个也借不到时改为单连接下载：
+     * 已持有会话的线程若阻塞等待连接许可，会与同一主机上的其它下载互相等待。
+     * 预先按远程文件大小分配本地文件，各段以REST偏移量下载并按位置写入本地文件，当前会话负责最后一段，下载后仍可复用。
+     * 各段的下载取自子任务执行器，与FTP子任务一同受其并发限制；轮到计算摘要时仍未开始的段改由当前线程下载，执行器繁忙时不会卡住。
+     * <p>
+     * 当前线程按顺序跟随各段的写入进度（{@link FtpSegmentProgress}，写入后即唤醒，不轮询）计算哈希值，读取的是刚写入、仍在页缓存中的内容，与下载同时进行，
+     * 不必在下载完成后再把整个文件读一遍。任一段失败时删除本地文件并抛出IOException，由调用者丢弃当前会话后重试；分段下载不记录断点。
+     *
+     * @param ftpSession 借用的会话
+     * @param remotePath 远程文件路径
+     * @param savedFile 本地保存位置
+     * @param size 远程文件大小
+     * @return java.lang.String 小写十六进制的哈希值
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private String downloadSegmented(final FtpSession ftpSession,final String remotePath,File savedFile,long size) throws IOException, NoSuchAlgorithmException {
+        MessageDigest messageDigest=MessageDigest.getInstance(this.digestAlgorithm);
+        List<FtpSession> segmentSessions=this.tryBorrowSegmentSessions(this.segmentCount-1);
+        if(segmentSessions.isEmpty()){
+            logger.info(this.logPrefix+"FTP服务器【"+hostName+":"+port+"】暂无空闲连接，文件【"+remotePath+"】改为单连接下载。\r\n");
+            return this.downloadWithDigest(ftpSession,remotePath,savedFile,0L,null);
+        }
+        final long segmentSize=(size+segmentSessions.size())/(segmentSessions.size()+1);
+        final int segments=(int)((size+segmentSize-1)/segmentSize);
+        //段数因取整少于会话数时，多借的会话直接归还
+        while (segmentSessions.size()>segments-1){
+            this.ftpSessionPool.release(segmentSessions.remove(segmentSessions.size()-1),false);
+        }
+        List<Future<?>> futureList=new ArrayList<>(segments);
+        FtpSegmentProgress[] progresses=new FtpSegmentProgress[segments];
+        //每段由先占者下载：下载线程，或轮到该段时尚未开始则为当前线程；借来的会话由下载者归还，未下载的段在失败时的清理中归还
+        final AtomicBoolean[] segmentClaims=new AtomicBoolean[segments];
+        boolean completed=false;
+        try (RandomAccessFile randomAccessFile=new RandomAccessFile(savedFile,"rw")){
+            randomAccessFile.setLength(size);
+            final FileChannel channel=randomAccessFile.getChannel();
+            for (int i = 0; i < segments; i++) {
+                final long offset=i*segmentSize;
+                final long length=Math.min(segmentSize,size-offset);
+                final FtpSegmentProgress progress=new FtpSegmentProgress();
+                final FtpSession segmentSession=i<segmentSessions.size()?segmentSessions.get(i):null;
+                final AtomicBoolean segmentClaim=new AtomicBoolean(false);
+                progresses[i]=progress;
+                segmentClaims[i]=segmentClaim;
+                futureList.add(this.submitWorker(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        if(segmentClaim.compareAndSet(false,true)){
+                            downloadSegment(null==segmentSession?ftpSession:segmentSession,null!=segmentSession,remotePath,offset,length,channel,progress);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            byte[] buffer=new byte[BUFFER_SIZE];
+            for (int i = 0; i < segments; i++) {
+                final long offset=i*segmentSize;
+                final long length=Math.min(segmentSize,size-offset);
+                Future<?> future=futureList.get(i);
+                if(segmentClaims[i].compareAndSet(false,true)){
+                    if(null!=future){
+                        future.cancel(false);
+                    }
+                    future=null;
+                    FtpSession segmentSession=i<segmentSessions.size()?segmentSessions.get(i):null;
+                    this.downloadSegment(null==segmentSession?ftpSession:segmentSession,null!=segmentSession,remotePath,offset,length,channel,progresses[i]);
+                }
+                this.digestSegment(channel,offset,length,progresses[i],future,messageDigest,buffer);
+            }
+            for (Future<?> future : futureList) {
+                if(null!=future&&!future.isCancelled()){
+                    future.get();
+                }
+            }
+            channel.force(false);
+            completed=true;
+        } catch (ExecutionException e) {
+            Throwable cause=null==e.getCause()?e:e.getCause();
+            throw cause instanceof IOException?(IOException)cause:new IOException("分段下载文件【"+remotePath+"】失败。",cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("分段下载文件【"+remotePath+"】时被中断。",e);
+        } finally {
+            if(!completed){
+                for (Future<?> future : futureList) {
+                    if(null!=future){
+                        future.cancel(true);
+                    }
+                }
+                for (int i = 0; i < segmentSessions.size(); i++) {
+                    if(segmentClaims[i].compareAndSet(false,true)){
+                        this.ftpSessionPool.release(segmentSessions.get(i),false);
+                    }
+                }
+                this.stagingArea.discard(savedFile,this.logPrefix);
+            }
+        }
+        return Hex.encodeHexString(messageDigest.digest());
+    }
+
+    /**
+     * 下载一段
+     * @param session 所用的会话
+     * @param borrowed 是否为分段下载专门借用的会话，是则下载后归还，提前中止传输的会话不再复用
+     * @param remotePath 远程文件路径
+     * @param offset 段的起始偏移量
+     * @param length 段的长度
+     * @param channel 本地文件通道
+     * @param progress 该段已写入的字节数
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private void downloadSegment(FtpSession session,boolean borrowed,String remotePath,long offset,long length,FileChannel channel,FtpSegmentProgress progress) throws IOException {
+        try {
+            if(!borrowed){
+                //最后一段由当前会话下载，读到文件末尾后仍可复用
+                if(!session.retrieveRange(remotePath,offset,length,channel,progress)){
+                    throw new IOException("服务器未确认文件【"+remotePath+"】最后一段传输成功："+session.getReplyString());
+                }
+                return;
+            }
+            boolean sessionBroken=true;
+            try {
+                sessionBroken=!session.retrieveRange(remotePath,offset,length,channel,progress);
+            } finally {
+                this.ftpSessionPool.release(session,sessionBroken);
+            }
+        } finally {
+            //唤醒等待进度的线程，由其检查下载结果
+            progress.finish();
+        }
+    }
+
+    /**
+     * 不等待地借用分段下载所需的会话，借不到时有几个算几个
+     * @param maxCount 最多借用的会话数
+     * @return java.util.List<net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpSession>
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private List<FtpSession> tryBorrowSegmentSessions(int maxCount){
+        FtpServerKey serverKey=new FtpServerKey(this.hostName,this.port,this.userName,this.account);
+        List<FtpSession> segmentSessions=new ArrayList<>(maxCount);
+        try {
+            while (segmentSessions.size()<maxCount){
+                FtpSession segmentSession=this.ftpSessionPool.tryBorrow(serverKey,this.password);
+                if(null==segmentSession){
+                    break;
+                }
+                segmentSessions.add(segmentSession);
+            }
+        } catch (IOException e) {
+            logger.warn(this.logPrefix+"未能为分段下载建立更多连接，按已借到的【"+segmentSessions.size()+"】个会话分段。\r\n",e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return segmentSessions;
+    }
+
+    /**
+     * 跟随一段的写入进度，按顺序把已写入的内容计入摘要，直至该段全部计入
+     * @param channel 本地文件通道
+     * @param offset 段的起始偏移量
+     * @param length 段的长度
+     * @param progress 该段已写入的字节数
+     * @param future 该段的下载任务，失败时以ExecutionException抛出其异常；为空时该段已由当前线程下载完毕
+     * @param messageDigest 摘要
+     * @param buffer 读取缓冲区
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private void digestSegment(FileChannel channel,long offset,long length,FtpSegmentProgress progress,Future<?> future,
+                               MessageDigest messageDigest,byte[] buffer) throws IOException, ExecutionException, InterruptedException {
+        long digested=0L;
+        while (digested<length){
+            long written=progress.getWritten();
+            if(written>digested){
+                ByteBuffer byteBuffer=ByteBuffer.wrap(buffer,0,(int)Math.min(buffer.length,written-digested));
+                int read=channel.read(byteBuffer,offset+digested);
+                if(read<0){
+                    throw new IOException("读取本地文件时提前到达末尾，偏移量【"+(offset+digested)+"】。");
+                }
+                messageDigest.update(buffer,0,read);
+                digested+=read;
+            }else if(progress.isFinished()){
+                if(null!=future){
+                    future.get();
+                }
+                if(progress.getWritten()<=digested){
+                    throw new IOException("分段【"+offset+"，"+(offset+length)+"）下载结束时只写入了【"+digested+"】字节。");
+                }
+            }else {
+                //由下载线程写入后唤醒
+                progress.awaitBeyond(digested);
+            }
+        }
+    }
+
+    /**
+     * 获取远程文件的元数据，失败时不影响下载
+     * @param ftpSession 借用的会话
+     * @param remotePath 远程文件路径
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.RemoteFileInfo 无法取得时返回null
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private RemoteFileInfo statQuietly(FtpSession ftpSession,String remotePath){
+        try {
+            return ftpSession.stat(remotePath);
+        } catch (IOException e) {
+            logger.warn(this.logPrefix+"未能获取文件【"+remotePath+"】的大小与修改时间，将直接下载。\r\n",e);
+            return null;
+        }
+    }
+
+    /**
+     * 远程文件是否自上次获取以来未被修改
+     * <p>
+     * 大小与修改时间均与缓存一致，且缓存的哈希值仍有FTP获取记录时，视为未修改。
+     * @param remotePath 远程文件路径
+     * @param remoteFileInfo 远程文件当前的元数据，可空
+     * @return boolean
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private boolean isUnchanged(String remotePath,RemoteFileInfo remoteFileInfo){
+        if(null==remoteFileInfo){
+            return false;
+        }
+        FtpRemoteFileCache.Entry cacheEntry=this.remoteFileCache.get(this.hostName,this.port,remotePath);
+        return null!=cacheEntry&&remoteFileInfo.sameAs(cacheEntry.getRemoteFileInfo())
+                &&this.isRecorded(cacheEntry.getHashValue());
+    }
+
+    /**
+     * 哈希值是否已有FTP获取记录，先查进程内索引，无法判定时再查数据库
+     * @param hashValue 哈希值
+     * @return boolean
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private boolean isRecorded(String hashValue){
+        if(this.hashIndex.isDefinitelyNew(hashValue)){
+            return false;
+        }
+        if(null!=this.ftpRecordDAO.getByHashValue(hashValue)){
+            this.hashIndex.add(hashValue);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 以流的方式计算远程文件的哈希值，内容只经过固定大小的缓冲区，不写磁盘
+     * @param ftpSession 借用的会话
+     * @param remotePath 远程文件路径
+     * @return java.lang.String 小写十六进制的哈希值，服务器未确认传输成功时返回null
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private String probeDigest(FtpSession ftpSession,String remotePath) throws IOException, NoSuchAlgorithmException {
+        MessageDigest messageDigest=MessageDigest.getInstance(this.digestAlgorithm);
+        boolean probeFlag;
+        try (OutputStream out=new DigestOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                //只计算摘要，丢弃内容
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                //只计算摘要，丢弃内容
             }
+        },messageDigest)){
+            probeFlag=ftpSession.retrieveFile(remotePath,out);
+        }
+        if(!probeFlag){
+            logger.warn(this.logPrefix+"服务器未确认文件【"+remotePath+"】的探测传输成功，将直接下载："+ftpSession.getReplyString());
+            return null;
         }
+        return Hex.encodeHexString(messageDigest.digest());
     }
 
 
+    /**
+     * 取得可用于续传的断点
+     * <p>
+     * 远程文件的大小与修改时间均与断点记录一致、且本地未完成文件仍在时才可续传；
+     * 否则删除失效的断点及其未完成文件。
+     * @param remotePath 远程文件路径
+     * @param remoteFileInfo 远程文件当前的元数据，可空
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpTransferCheckpoint 不可续传时返回null
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private FtpTransferCheckpoint resumableCheckpoint(String remotePath,RemoteFileInfo remoteFileInfo){
+        FtpTransferCheckpoint checkpoint=this.checkpointStore.get(this.ftpTaskId,remotePath);
+        if(null==checkpoint){
+            return null;
+        }
+        File partialFile=this.stagingArea.stagingFile(checkpoint.getSaveName());
+        if(null!=remoteFileInfo&&remoteFileInfo.sameAs(checkpoint.getRemoteFileInfo())
+                &&partialFile.isFile()&&partialFile.length()<=remoteFileInfo.getSize()){
+            return checkpoint;
+        }
+        logger.info(this.logPrefix+"断点【"+checkpoint+"】已失效，将重新下载。\r\n");
+        this.stagingArea.discard(partialFile,this.logPrefix);
+        this.checkpointStore.remove(this.ftpTaskId,remotePath);
+        return null;
+    }
+
+    /**
+     * 下载文件，同时以配置的摘要算法计算其哈希值
+     * <p>
+     * 数据在写入磁盘的同时流经摘要计算，无需在下载完成后再把整个文件读一遍。
+     * 从断点续传时，先截断到断点位置并用已有内容预热摘要，再以REST偏移量追加下载其余部分。
+     *
+     * @param ftpSession 借用的会话
+     * @param remotePath 远程文件路径
+     * @param savedFile 本地保存位置
+     * @param offset 续传起点，从头下载时为0
+     * @param checkpoint 起始断点，不为空时在传输中定期更新
+     * @return java.lang.String 小写十六进制的哈希值，服务器未确认传输成功时返回null
+     * @author JQY
+     * @date 2026/10/17
+     */
+    private String downloadWithDigest(FtpSession ftpSession,String remotePath,File savedFile,long offset,FtpTransferCheckpoint checkpoint) throws IOException, NoSuchAlgorithmException {
+        MessageDigest messageDigest=MessageDigest.getInstance(this.digestAlgorithm);
+        if(offset>0){
+            try (RandomAccessFile randomAccessFile=new RandomAccessFile(savedFile,"rw")){
+                randomAccessFile.setLength(offset);
+            }
+            try (InputStream in=new DigestInputStream(new FileInputStream(savedFile),messageDigest)){
+                byte[] buffer=new byte[BUFFER_SIZE];
+                while (in.read(buffer)>=0){
+                    //读取即计算
+                }
+            }
+        }
+        boolean saveFileFlag;
+        OutputStream fileOut=new FileOutputStream(savedFile,offset>0);
+        if(null!=checkpoint){
+            fileOut=new FtpCheckpointOutputStream(fileOut,this.checkpointStore,this.ftpTaskId,checkpoint,CHECKPOINT_INTERVAL_BYTES,CHECKPOINT_INTERVAL_NANOS);
+        }
+        try (OutputStream out=new DigestOutputStream(new BufferedOutputStream(fileOut,BUFFER_SIZE),messageDigest)){
+            saveFileFlag=offset>0
+                    ?ftpSession.retrieveFile(remotePath,out,offset)
+                    :ftpSession.retrieveFile(remotePath,out);
+        }
+        if(!saveFileFlag){
+            logger.warn(this.logPrefix+"服务器未确认文件【"+remotePath+"】传输成功："+ftpSession.getReplyString());
+            return null;
+        }
+        return Hex.encodeHexString(messageDigest.digest());
+    }
+
     /**
      * Computes a result, or throws an exception if unable to do so.
      *
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+/**
+ * 未完成传输的断点
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpTransferCheckpoint
+ * @author: JQY
+ * @create: 2026-10-17 21:10 Via IntelliJ IDEA
+ **/
+public class FtpTransferCheckpoint {
+
+    /**
+     * 远程文件路径
+     */
+    private final String remotePath;
+
+    /**
+     * 本地未完成文件的存储名
+     */
+    private final String saveName;
+
+    /**
+     * 中断时远程文件的元数据，元数据变化后断点失效
+     */
+    private final RemoteFileInfo remoteFileInfo;
+
+    /**
+     * 中断时已写入本地的字节数
+     */
+    private final long offset;
+
+    public FtpTransferCheckpoint(String remotePath, String saveName, RemoteFileInfo remoteFileInfo, long offset) {
+        this.remotePath = remotePath;
+        this.saveName = saveName;
+        this.remoteFileInfo = remoteFileInfo;
+        this.offset = offset;
+    }
+
+    public String getRemotePath() {
+        return remotePath;
+    }
+
+    public String getSaveName() {
+        return saveName;
+    }
+
+    public RemoteFileInfo getRemoteFileInfo() {
+        return remoteFileInfo;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public String toString() {
+        return "FtpTransferCheckpoint{" +
+                "remotePath='" + remotePath + '\'' +
+                ", saveName='" + saveName + '\'' +
+                ", remoteFileInfo=" + remoteFileInfo +
+                ", offset=" + offset +
+                '}';
+    }
+}
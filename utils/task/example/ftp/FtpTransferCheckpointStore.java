@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * FTP断点存储
+ * <p>
+ * 以“FTP子任务编号+远程文件路径”为键，每个断点存为检查点目录下的一个小文件。
+ * 传输开始时记录未完成文件及其偏移量，传输中定期更新（{@link FtpCheckpointOutputStream}），中断时再记录一次；
+ * 重试时从该偏移量继续下载（REST），传输完成后删除断点。
+ * <p>
+ * 检查点目录由basedata.ftp.checkpointPath配置，默认为basedata.ftp.realPath下的.checkpoint目录。
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpTransferCheckpointStore
+ * @author: JQY
+ * @create: 2026-10-17 21:15 Via IntelliJ IDEA
+ **/
+@Component
+public class FtpTransferCheckpointStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(FtpTransferCheckpointStore.class);
+
+    @Value("${basedata.ftp.checkpointPath:${basedata.ftp.realPath}.checkpoint}")
+    private String checkpointPath;
+
+    /**
+     * 读取断点
+     * @param ftpTaskId FTP子任务编号
+     * @param remotePath 远程文件路径
+     * @return net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.FtpTransferCheckpoint 没有断点时返回null
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public FtpTransferCheckpoint get(BigDecimal ftpTaskId, String remotePath) {
+        File file = this.fileOf(ftpTaskId, remotePath);
+        if (!file.isFile()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            properties.load(in);
+            if (!remotePath.equals(properties.getProperty("remotePath"))) {
+                return null;
+            }
+            return new FtpTransferCheckpoint(remotePath, properties.getProperty("saveName"),
+                    new RemoteFileInfo(Long.parseLong(properties.getProperty("size")), Long.parseLong(properties.getProperty("modifiedTime"))),
+                    Long.parseLong(properties.getProperty("offset")));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("\r\n读取断点【" + file + "】失败，已忽略。\r\n", e);
+            return null;
+        }
+    }
+
+    /**
+     * 保存断点（先写临时文件再替换）
+     * @param ftpTaskId FTP子任务编号
+     * @param checkpoint 断点
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void put(BigDecimal ftpTaskId, FtpTransferCheckpoint checkpoint) {
+        File file = this.fileOf(ftpTaskId, checkpoint.getRemotePath());
+        Properties properties = new Properties();
+        properties.setProperty("remotePath", checkpoint.getRemotePath());
+        properties.setProperty("saveName", checkpoint.getSaveName());
+        properties.setProperty("size", String.valueOf(checkpoint.getRemoteFileInfo().getSize()));
+        properties.setProperty("modifiedTime", String.valueOf(checkpoint.getRemoteFileInfo().getModifiedTime()));
+        properties.setProperty("offset", String.valueOf(checkpoint.getOffset()));
+        Path temp = new File(file.getPath() + ".tmp").toPath();
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, "FTP transfer checkpoint");
+            }
+            Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("\r\n保存断点【" + checkpoint + "】失败，下次将从头下载。\r\n", e);
+        }
+    }
+
+    /**
+     * 删除断点
+     * @param ftpTaskId FTP子任务编号
+     * @param remotePath 远程文件路径
+     * @return void
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public void remove(BigDecimal ftpTaskId, String remotePath) {
+        File file = this.fileOf(ftpTaskId, remotePath);
+        if (file.exists() && !file.delete()) {
+            logger.warn("\r\n断点【" + file + "】删除失败，请手工删除。\r\n");
+        }
+    }
+
+    private File fileOf(BigDecimal ftpTaskId, String remotePath) {
+        return new File(this.checkpointPath, ftpTaskId + "-" + DigestUtils.md5Hex(remotePath) + ".properties");
+    }
+}
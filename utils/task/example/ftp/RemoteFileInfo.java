@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2019. JQY and/or its organisation. All rights reserved.
+ */
+
+package net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp;
+
+/**
+ * 远程文件的元数据（MLST或SIZE/MDTM的结果）
+ *
+ * @project:acr
+ * @fully_qualified_name: net.gmcc.dg.acr.modules.reward.basedata.service.convert.ftp.RemoteFileInfo
+ * @author: JQY
+ * @create: 2026-10-17 19:02 Via IntelliJ IDEA
+ **/
+public class RemoteFileInfo {
+
+    /**
+     * 文件大小（字节）
+     */
+    private final long size;
+
+    /**
+     * 最后修改时间（UTC毫秒）
+     */
+    private final long modifiedTime;
+
+    public RemoteFileInfo(long size, long modifiedTime) {
+        this.size = size;
+        this.modifiedTime = modifiedTime;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getModifiedTime() {
+        return modifiedTime;
+    }
+
+    /**
+     * 大小与修改时间是否都相同
+     * @param other 另一份元数据，可空
+     * @return boolean
+     * @author JQY
+     * @date 2026/10/17
+     */
+    public boolean sameAs(RemoteFileInfo other) {
+        return null != other && this.size == other.size && this.modifiedTime == other.modifiedTime;
+    }
+
+    @Override
+    public String toString() {
+        return "RemoteFileInfo{" +
+                "size=" + size +
+                ", modifiedTime=" + modifiedTime +
+                '}';
+    }
+}